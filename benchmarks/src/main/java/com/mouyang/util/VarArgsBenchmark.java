@@ -0,0 +1,51 @@
+package com.mouyang.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * {@link VarArgs#nullSafe(Object...)} against a hand-written loop that skips nulls.
+ * 
+ * @author Matthew
+ *
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VarArgsBenchmark {
+	
+	@Param({ "0", "4", "32" })
+	private int size;
+	
+	private Object[] values;
+	
+	@Setup
+	public void setUp() {
+		values = new Object[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = (0 == i % 4) ? null : Integer.valueOf(i);
+		}
+	}
+	
+	@Benchmark
+	public List<Object> nullSafe() {
+		return VarArgs.nullSafe(values);
+	}
+	
+	@Benchmark
+	public List<Object> baseline() {
+		List<Object> nonNull = new ArrayList<>(values.length);
+		for (Object value : values) {
+			if (null != value) {
+				nonNull.add(value);
+			}
+		}
+		return nonNull;
+	}
+}
@@ -0,0 +1,86 @@
+package com.mouyang.util.combinatorics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Full traversals of a three dimensional product by {@link IndexDimensionIterator} and 
+ * {@link CollectionDimensionIterator} against nested for loops.
+ * 
+ * @author Matthew
+ *
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DimensionIteratorBenchmark {
+	
+	@Param({ "4", "32" })
+	private int size;
+	
+	private int[] lengths;
+	private List<Integer> values;
+	private Collection<?>[] collections;
+	
+	@Setup
+	public void setUp() {
+		lengths = new int[] { size, size, size };
+		values = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			values.add(i);
+		}
+		collections = new Collection<?>[] { values, values, values };
+	}
+	
+	@Benchmark
+	public void indexDimensionIterator(Blackhole blackhole) {
+		IndexDimensionIterator iterator = new IndexDimensionIterator(lengths);
+		while (iterator.hasNext()) {
+			int[] indices = iterator.next();
+			blackhole.consume(indices[0] + indices[1] + indices[2]);
+		}
+	}
+	
+	@Benchmark
+	public void index_baseline(Blackhole blackhole) {
+		for (int k = 0; k < lengths[2]; k++) {
+			for (int j = 0; j < lengths[1]; j++) {
+				for (int i = 0; i < lengths[0]; i++) {
+					blackhole.consume(i + j + k);
+				}
+			}
+		}
+	}
+	
+	@Benchmark
+	public void collectionDimensionIterator(Blackhole blackhole) {
+		CollectionDimensionIterator iterator = new CollectionDimensionIterator(collections);
+		while (iterator.hasNext()) {
+			Object[] tuple = iterator.next();
+			blackhole.consume(tuple[0]);
+			blackhole.consume(tuple[1]);
+			blackhole.consume(tuple[2]);
+		}
+	}
+	
+	@Benchmark
+	public void collection_baseline(Blackhole blackhole) {
+		for (Integer k : values) {
+			for (Integer j : values) {
+				for (Integer i : values) {
+					blackhole.consume(i);
+					blackhole.consume(j);
+					blackhole.consume(k);
+				}
+			}
+		}
+	}
+}
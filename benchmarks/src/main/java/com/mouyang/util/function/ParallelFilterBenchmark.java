@@ -0,0 +1,62 @@
+package com.mouyang.util.function;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * {@link PredicateFactory#parallelFilter(List, Predicate)} against a parallel stream and a sequential loop, with about
+ * half of the elements kept.
+ *
+ * @author Matthew
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelFilterBenchmark {
+
+	@Param({ "1000000", "10000000" })
+	private int size;
+
+	private List<Integer> input;
+	private Predicate<Integer> predicate;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		input = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			input.add(i * 31);
+		}
+		predicate = PredicateFactory.allOf(x -> x % 2 == 0, x -> x >= 0);
+	}
+
+	@Benchmark
+	public List<Integer> parallelFilter() {
+		return PredicateFactory.parallelFilter(input, predicate);
+	}
+
+	@Benchmark
+	public List<Integer> parallelStream() {
+		return input.parallelStream().filter(predicate).collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<Integer> sequential_baseline() {
+		List<Integer> result = new ArrayList<>();
+		for (Integer element : input) {
+			if (predicate.test(element)) {
+				result.add(element);
+			}
+		}
+		return result;
+	}
+}
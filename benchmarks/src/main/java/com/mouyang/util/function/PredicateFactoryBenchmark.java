@@ -0,0 +1,75 @@
+package com.mouyang.util.function;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Composites built by {@link PredicateFactory} against hand-written loops over the same clauses.  Every clause of 
+ * allOf is satisfied and no clause of anyOf is, so neither short-circuits.
+ * 
+ * @author Matthew
+ *
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PredicateFactoryBenchmark {
+	
+	@Param({ "2", "8" })
+	private int clauses;
+	
+	private Integer value = 1000;
+	private Predicate<Integer>[] lowerBounds;
+	private Predicate<Integer>[] upperBounds;
+	private Predicate<Integer> allOf;
+	private Predicate<Integer> anyOf;
+	
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		lowerBounds = new Predicate[clauses];
+		upperBounds = new Predicate[clauses];
+		for (int i = 0; i < clauses; i++) {
+			final int bound = i;
+			lowerBounds[i] = x -> x > bound;
+			upperBounds[i] = x -> x < bound;
+		}
+		allOf = PredicateFactory.allOf(lowerBounds);
+		anyOf = PredicateFactory.anyOf(upperBounds);
+	}
+	
+	@Benchmark
+	public boolean allOf() {
+		return allOf.test(value);
+	}
+	
+	@Benchmark
+	public boolean anyOf() {
+		return anyOf.test(value);
+	}
+	
+	@Benchmark
+	public boolean allOf_baseline() {
+		for (Predicate<Integer> predicate : lowerBounds) {
+			if (!predicate.test(value)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	@Benchmark
+	public boolean anyOf_baseline() {
+		for (Predicate<Integer> predicate : upperBounds) {
+			if (predicate.test(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
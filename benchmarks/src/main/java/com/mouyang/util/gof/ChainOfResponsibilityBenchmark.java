@@ -0,0 +1,63 @@
+package com.mouyang.util.gof;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * {@link ChainOfResponsibility#findFirst()} and {@link ChainOfResponsibility#findAll()} against an if chain over the 
+ * same Suppliers.  Only the last handler answers, so every handler is visited.
+ * 
+ * @author Matthew
+ *
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChainOfResponsibilityBenchmark {
+	
+	@Param({ "1", "4", "16" })
+	private int handlers;
+	
+	private ChainOfResponsibility<Integer> chain;
+	private Supplier<Integer>[] suppliers;
+	
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		chain = new ChainOfResponsibility<>();
+		suppliers = new Supplier[handlers];
+		for (int i = 0; i < handlers; i++) {
+			final Integer value = (handlers - 1 == i) ? Integer.valueOf(i) : null;
+			suppliers[i] = () -> value;
+			chain.add(() -> true, suppliers[i]);
+		}
+	}
+	
+	@Benchmark
+	public Optional<Integer> findFirst() {
+		return chain.findFirst();
+	}
+	
+	@Benchmark
+	public List<Integer> findAll() {
+		return chain.findAll();
+	}
+	
+	@Benchmark
+	public Integer baseline() {
+		for (Supplier<Integer> supplier : suppliers) {
+			Integer value = supplier.get();
+			if (null != value) {
+				return value;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,79 @@
+package com.mouyang.util.gof;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.mouyang.util.gof.EnumVisitor.AbstractEnumVisitorBuilderFactory;
+import com.mouyang.util.gof.EnumVisitor.EnumVisitorBuilder;
+
+/**
+ * {@link EnumVisitor#visit(Enum)} against a plain switch over the same constants.  Each invocation visits every 
+ * constant once, in a shuffled order so that the switch cannot be predicted perfectly.
+ * 
+ * @author Matthew
+ *
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EnumVisitorBenchmark {
+	
+	public enum Operation { INCREMENT, DECREMENT, DOUBLE, HALVE, NEGATE, SQUARE, IDENTITY, ZERO }
+	
+	private static final Operation[] ORDER = { 
+		Operation.SQUARE, Operation.INCREMENT, Operation.ZERO, Operation.HALVE, 
+		Operation.DECREMENT, Operation.IDENTITY, Operation.DOUBLE, Operation.NEGATE };
+	
+	private EnumVisitor<Operation, Function<Integer, Integer>> visitor;
+	
+	@Setup
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void setUp() {
+		EnumVisitorBuilder<Operation, Function<Integer, Integer>> builder = 
+			(EnumVisitorBuilder) AbstractEnumVisitorBuilderFactory.newInstance(Operation.class, Function.class);
+		visitor = builder
+			.addHandler(i -> i + 1, Operation.INCREMENT)
+			.addHandler(i -> i - 1, Operation.DECREMENT)
+			.addHandler(i -> i * 2, Operation.DOUBLE)
+			.addHandler(i -> i / 2, Operation.HALVE)
+			.addHandler(i -> -i, Operation.NEGATE)
+			.addHandler(i -> i * i, Operation.SQUARE)
+			.addHandler(i -> i, Operation.IDENTITY)
+			.addHandler(i -> 0, Operation.ZERO)
+			.build();
+	}
+	
+	@Benchmark
+	public void visit(Blackhole blackhole) {
+		for (Operation operation : ORDER) {
+			blackhole.consume(visitor.visit(operation).apply(7));
+		}
+	}
+	
+	@Benchmark
+	public void baseline(Blackhole blackhole) {
+		for (Operation operation : ORDER) {
+			blackhole.consume(apply(operation, 7));
+		}
+	}
+	
+	private static int apply(Operation operation, int i) {
+		switch (operation) {
+		case INCREMENT: return i + 1;
+		case DECREMENT: return i - 1;
+		case DOUBLE: return i * 2;
+		case HALVE: return i / 2;
+		case NEGATE: return -i;
+		case SQUARE: return i * i;
+		case IDENTITY: return i;
+		case ZERO: return 0;
+		default: throw new IllegalArgumentException();
+		}
+	}
+}
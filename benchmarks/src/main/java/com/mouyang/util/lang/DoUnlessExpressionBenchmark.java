@@ -0,0 +1,68 @@
+package com.mouyang.util.lang;
+
+import static com.mouyang.util.lang.DoUnlessExpression._do;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The per-call cost of <code>_do(...).unless(...)</code>, {@link PreparedUnless} and {@link UnlessGuard} against an 
+ * if statement over the same conditions.  No condition is satisfied, so all of them are evaluated and the block runs.
+ * 
+ * @author Matthew
+ *
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DoUnlessExpressionBenchmark {
+	
+	private boolean a;
+	private boolean b;
+	private boolean c;
+	private int runs;
+	
+	private final BooleanSupplier conditionA = () -> a;
+	private final BooleanSupplier conditionB = () -> b;
+	private final BooleanSupplier conditionC = () -> c;
+	private final Runnable block = () -> runs++;
+	private PreparedUnless prepared;
+	private UnlessGuard guard;
+	
+	@Setup
+	public void setUp() {
+		prepared = PreparedUnless.prepare(conditionA, conditionB, conditionC);
+		guard = UnlessGuard.builder().condition(conditionA).condition(conditionB).condition(conditionC).build();
+	}
+	
+	@Benchmark
+	public int doUnless() {
+		_do(block).unless(conditionA, conditionB, conditionC);
+		return runs;
+	}
+	
+	@Benchmark
+	public int prepared() {
+		prepared.run(block);
+		return runs;
+	}
+	
+	@Benchmark
+	public int guard() {
+		_do(block).unless(guard);
+		return runs;
+	}
+	
+	@Benchmark
+	public int baseline() {
+		if (!(conditionA.getAsBoolean() || conditionB.getAsBoolean() || conditionC.getAsBoolean())) {
+			block.run();
+		}
+		return runs;
+	}
+}
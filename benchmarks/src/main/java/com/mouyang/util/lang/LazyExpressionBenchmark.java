@@ -0,0 +1,54 @@
+package com.mouyang.util.lang;
+
+import static com.mouyang.util.lang.LazyExpression._lazy;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Reads of an initialized {@link LazyExpression} against the synchronized getter and double-checked locking idioms it 
+ * replaces.  Run with several threads (<code>-t</code>) to see the effect of contention on the synchronized getter.
+ * 
+ * @author Matthew
+ *
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LazyExpressionBenchmark {
+	
+	private final LazyExpression<Object> lazy = _lazy(Object::new);
+	private Object synchronizedValue;
+	private volatile Object doubleCheckedValue;
+	
+	@Benchmark
+	public Object lazy() {
+		return lazy.get();
+	}
+	
+	@Benchmark
+	public synchronized Object synchronized_baseline() {
+		if (null == synchronizedValue) {
+			synchronizedValue = new Object();
+		}
+		return synchronizedValue;
+	}
+	
+	@Benchmark
+	public Object doubleChecked_baseline() {
+		Object value = doubleCheckedValue;
+		if (null == value) {
+			synchronized (this) {
+				value = doubleCheckedValue;
+				if (null == value) {
+					doubleCheckedValue = value = new Object();
+				}
+			}
+		}
+		return value;
+	}
+}
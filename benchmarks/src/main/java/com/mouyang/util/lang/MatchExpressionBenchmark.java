@@ -0,0 +1,71 @@
+package com.mouyang.util.lang;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.mouyang.util.lang.MatchExpression.Matcher;
+
+/**
+ * A compiled {@link Matcher} against the equivalent if/else ladder, over a sweep of HTTP status codes.
+ * 
+ * @author Matthew
+ *
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MatchExpressionBenchmark {
+	
+	private static final int[] CONSTANTS = { 200, 201, 202, 204, 301, 302, 304, 400, 401, 403, 404, 409, 429 };
+	
+	private Matcher<Integer, Integer> matcher;
+	private Integer[] statuses;
+	
+	@Setup
+	public void setUp() {
+		MatchExpression<Integer, Integer> cases = MatchExpression._match();
+		for (int constant : CONSTANTS) {
+			cases.when(constant, s -> s);
+		}
+		matcher = cases
+			.whenBetween(100, 199, s -> 1)
+			.whenBetween(500, 599, s -> 5)
+			.otherwise(s -> 0);
+		statuses = new Integer[64];
+		for (int i = 0; i < statuses.length; i++) {
+			statuses[i] = 100 + (i * 37) % 500;
+		}
+	}
+	
+	@Benchmark
+	public void matcher(Blackhole blackhole) {
+		for (Integer status : statuses) {
+			blackhole.consume(matcher.apply(status));
+		}
+	}
+	
+	@Benchmark
+	public void baseline(Blackhole blackhole) {
+		for (Integer status : statuses) {
+			blackhole.consume(ladder(status));
+		}
+	}
+	
+	private static int ladder(int s) {
+		if (s == 200 || s == 201 || s == 202 || s == 204 || s == 301 || s == 302 || s == 304 
+				|| s == 400 || s == 401 || s == 403 || s == 404 || s == 409 || s == 429) {
+			return s;
+		} else if (100 <= s && s <= 199) {
+			return 1;
+		} else if (500 <= s && s <= 599) {
+			return 5;
+		} else {
+			return 0;
+		}
+	}
+}
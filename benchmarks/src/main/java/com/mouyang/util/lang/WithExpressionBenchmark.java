@@ -0,0 +1,81 @@
+package com.mouyang.util.lang;
+
+import static com.mouyang.util.lang.WithExpression._with;
+import static com.mouyang.util.lang.WithExpression._withBuffer;
+import static com.mouyang.util.lang.WithExpression._withPooled;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.mouyang.util.concurrent.ObjectPool;
+import com.mouyang.util.nio.BufferArena;
+
+/**
+ * {@link WithExpression} scopes against a local variable, and the pooled and arena scopes against allocating a fresh 
+ * StringBuilder or byte array in the scope.
+ * 
+ * @author Matthew
+ *
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WithExpressionBenchmark {
+	
+	@Param({ "1024" })
+	private int bufferSize;
+	
+	private final ObjectPool<StringBuilder> pool = new ObjectPool<>(StringBuilder::new, sb -> sb.setLength(0), 4, 16);
+	private BufferArena arena;
+	private String value = "value";
+	
+	@Setup
+	public void setUp() {
+		arena = new BufferArena(4 * bufferSize);
+	}
+	
+	@Benchmark
+	public void with(Blackhole blackhole) {
+		_with(value).consume(v -> blackhole.consume(v.length()));
+	}
+	
+	@Benchmark
+	public void with_baseline(Blackhole blackhole) {
+		String v = value;
+		blackhole.consume(v.length());
+	}
+	
+	@Benchmark
+	public void withPooled(Blackhole blackhole) {
+		_withPooled(pool, sb -> blackhole.consume(sb.append(value).length()));
+	}
+	
+	@Benchmark
+	public void withPooled_baseline(Blackhole blackhole) {
+		StringBuilder sb = new StringBuilder();
+		blackhole.consume(sb.append(value).length());
+	}
+	
+	@Benchmark
+	public void withBuffer(Blackhole blackhole) {
+		_withBuffer(arena, bufferSize, buffer -> blackhole.consume(fill(buffer)));
+	}
+	
+	@Benchmark
+	public void withBuffer_baseline(Blackhole blackhole) {
+		blackhole.consume(fill(ByteBuffer.wrap(new byte[bufferSize])));
+	}
+	
+	private static int fill(ByteBuffer buffer) {
+		for (int i = 0; i < buffer.limit(); i += 8) {
+			buffer.putLong(i, i);
+		}
+		return buffer.limit();
+	}
+}
@@ -0,0 +1,301 @@
+package com.mouyang.util.gof.processor;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+import com.mouyang.util.gof.GenerateEnumVisitor;
+import com.mouyang.util.gof.Visit;
+
+/**
+ * Generates a visitor for each type annotated with {@link GenerateEnumVisitor}, and fails the compilation where
+ * EnumVisitorBuilder.build() would fail at runtime:
+ *
+ * <ol>
+ * <li>a {@link Visit} or exception naming a value the enum does not have</li>
+ * <li>a value handled by more than one method</li>
+ * <li>a handler for an exception value</li>
+ * <li>a value which is neither handled nor an exception</li>
+ * <li>handler methods which do not share the same parameters and return type</li>
+ * </ol>
+ *
+ * The generated visitor dispatches with a switch on the enum, so nothing is looked up or reflected upon at runtime.
+ *
+ * @author Matthew
+ *
+ */
+public class EnumVisitorProcessor extends AbstractProcessor {
+
+	private static final String SUFFIX = "Visitor";
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return new HashSet<>(Arrays.asList(GenerateEnumVisitor.class.getCanonicalName(), Visit.class.getCanonicalName()));
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (Element method : roundEnv.getElementsAnnotatedWith(Visit.class)) {
+			if (null == method.getEnclosingElement().getAnnotation(GenerateEnumVisitor.class)) {
+				error(method, "@Visit methods must be declared in a @GenerateEnumVisitor type");
+			}
+		}
+		for (Element holder : roundEnv.getElementsAnnotatedWith(GenerateEnumVisitor.class)) {
+			if (holder.getKind() != ElementKind.CLASS && holder.getKind() != ElementKind.INTERFACE) {
+				error(holder, "@GenerateEnumVisitor must annotate a class or an interface");
+			} else if (!((TypeElement) holder).getTypeParameters().isEmpty()) {
+				error(holder, "@GenerateEnumVisitor types cannot be generic");
+			} else if (holder.getModifiers().contains(Modifier.PRIVATE)) {
+				error(holder, "@GenerateEnumVisitor types cannot be private");
+			} else {
+				new Holder((TypeElement) holder).generate();
+			}
+		}
+		return true;
+	}
+
+	private void error(Element element, String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+
+	/**
+	 * The handler methods of a {@link GenerateEnumVisitor} type, grouped by method in declaration order.
+	 */
+	private class Holder {
+		private final TypeElement type;
+		private final AnnotationMirror annotation;
+		private final Messager messager = processingEnv.getMessager();
+		private final Types types = processingEnv.getTypeUtils();
+		private final Map<ExecutableElement, List<String>> handled = new LinkedHashMap<>();
+		private TypeElement enumType;
+		private boolean failed;
+
+		private Holder(TypeElement type) {
+			this.type = type;
+			this.annotation = type.getAnnotationMirrors().stream()
+				.filter(mirror -> ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName()
+					.contentEquals(GenerateEnumVisitor.class.getCanonicalName()))
+				.findFirst()
+				.get();
+		}
+
+		private void generate() {
+			Map<String, AnnotationValue> values = new HashMap<>();
+			processingEnv.getElementUtils().getElementValuesWithDefaults(annotation)
+				.forEach((key, value) -> values.put(key.getSimpleName().toString(), value));
+			enumType = (TypeElement) ((DeclaredType) values.get("value").getValue()).asElement();
+			List<String> constants = ElementFilter.fieldsIn(enumType.getEnclosedElements()).stream()
+				.filter(field -> field.getKind() == ElementKind.ENUM_CONSTANT)
+				.map(field -> field.getSimpleName().toString())
+				.collect(Collectors.toList());
+
+			Set<String> exceptions = new LinkedHashSet<>();
+			AnnotationValue exceptionsValue = values.get("exceptions");
+			for (AnnotationValue exception : asList(exceptionsValue)) {
+				String name = (String) exception.getValue();
+				if (!constants.contains(name)) {
+					error(exceptionsValue, format("'%s' is not a value of %s", name, enumType.getQualifiedName()));
+				}
+				exceptions.add(name);
+			}
+
+			Map<String, ExecutableElement> handlers = new HashMap<>();
+			for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+				AnnotationMirror visit = method.getAnnotationMirrors().stream()
+					.filter(mirror -> ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName()
+						.contentEquals(Visit.class.getCanonicalName()))
+					.findFirst()
+					.orElse(null);
+				if (null == visit) {
+					continue;
+				}
+				checkMethod(method);
+				List<String> names = new ArrayList<>();
+				for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : visit.getElementValues().entrySet()) {
+					for (AnnotationValue value : asList(entry.getValue())) {
+						String name = (String) value.getValue();
+						if (!constants.contains(name)) {
+							error(method, visit, format("'%s' is not a value of %s", name, enumType.getQualifiedName()));
+						} else if (exceptions.contains(name)) {
+							error(method, visit, format("cannot add a handler for exception value '%s'", name));
+						} else if (handlers.containsKey(name)) {
+							error(method, visit, format("'%s' is already handled by %s()", name,
+								handlers.get(name).getSimpleName()));
+						} else {
+							handlers.put(name, method);
+							names.add(name);
+						}
+					}
+				}
+				handled.put(method, names);
+			}
+
+			String missing = constants.stream()
+				.filter(name -> !exceptions.contains(name) && !handlers.containsKey(name))
+				.collect(Collectors.joining(","));
+			if (!missing.isEmpty()) {
+				error(type, annotation, format("add handlers for the following enum values ('%s')", missing));
+			}
+			if (handled.isEmpty()) {
+				error(type, annotation, "declare at least one @Visit method");
+			}
+			if (!failed) {
+				write();
+			}
+		}
+
+		/**
+		 * Checks that the method can be called from the generated visitor, and has the same signature as the first
+		 * handler method.
+		 */
+		private void checkMethod(ExecutableElement method) {
+			if (method.getModifiers().contains(Modifier.PRIVATE) || method.getModifiers().contains(Modifier.STATIC)) {
+				error(method, null, "@Visit methods cannot be private or static");
+			}
+			if (!method.getTypeParameters().isEmpty()) {
+				error(method, null, "@Visit methods cannot be generic");
+			}
+			if (handled.isEmpty()) {
+				return;
+			}
+			ExecutableElement first = handled.keySet().iterator().next();
+			List<? extends VariableElement> expected = first.getParameters();
+			List<? extends VariableElement> actual = method.getParameters();
+			boolean same = types.isSameType(first.getReturnType(), method.getReturnType())
+				&& expected.size() == actual.size();
+			for (int i = 0; same && i < actual.size(); i++) {
+				same = types.isSameType(expected.get(i).asType(), actual.get(i).asType());
+			}
+			if (!same) {
+				error(method, null, format("@Visit methods must have the same parameters and return type as %s()",
+					first.getSimpleName()));
+			}
+		}
+
+		private void write() {
+			String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+			String visitorName = visitorName();
+			ExecutableElement first = handled.keySet().iterator().next();
+			TypeMirror returnType = first.getReturnType();
+			boolean returns = returnType.getKind() != TypeKind.VOID;
+			List<? extends VariableElement> parameters = first.getParameters();
+			String parameterList = parameters.stream()
+				.map(parameter -> format(", %s %s", parameter.asType(), parameter.getSimpleName()))
+				.collect(Collectors.joining());
+			String arguments = parameters.stream()
+				.map(parameter -> parameter.getSimpleName().toString())
+				.collect(Collectors.joining(", "));
+			// any handler may throw, so the visit method declares the checked exceptions of all of them
+			Set<String> thrown = new LinkedHashSet<>();
+			handled.keySet().forEach(method -> method.getThrownTypes().forEach(t -> thrown.add(t.toString())));
+			String modifier = type.getModifiers().contains(Modifier.PUBLIC) ? "public " : "";
+			Set<String> parameterNames = parameters.stream()
+				.map(parameter -> parameter.getSimpleName().toString())
+				.collect(Collectors.toSet());
+			String visitParameter = "e";
+			while (parameterNames.contains(visitParameter)) {
+				visitParameter += "_";
+			}
+
+			StringBuilder source = new StringBuilder();
+			if (!packageName.isEmpty()) {
+				source.append("package ").append(packageName).append(";\n\n");
+			}
+			source.append("/**\n")
+				.append(" * Dispatches ").append(enumType.getQualifiedName()).append(" values to the @Visit methods of ")
+				.append(type.getQualifiedName()).append(".\n")
+				.append(" * Generated by ").append(EnumVisitorProcessor.class.getName()).append(", do not edit.\n")
+				.append(" */\n")
+				.append(modifier).append("final class ").append(visitorName).append(" {\n")
+				.append("\tprivate final ").append(type.getQualifiedName()).append(" handlers;\n\n")
+				.append("\t").append(modifier).append(visitorName).append("(").append(type.getQualifiedName())
+				.append(" handlers) {\n")
+				.append("\t\tthis.handlers = java.util.Objects.requireNonNull(handlers);\n")
+				.append("\t}\n\n")
+				.append("\tpublic ").append(returnType).append(" visit(").append(enumType.getQualifiedName())
+				.append(" ").append(visitParameter).append(parameterList).append(")");
+			if (!thrown.isEmpty()) {
+				source.append(" throws ").append(String.join(", ", thrown));
+			}
+			source.append(" {\n")
+				.append("\t\tswitch (").append(visitParameter).append(") {\n");
+			handled.forEach((method, names) -> {
+				if (names.isEmpty()) {
+					return;
+				}
+				names.forEach(name -> source.append("\t\tcase ").append(name).append(":\n"));
+				String call = format("this.handlers.%s(%s);", method.getSimpleName(), arguments);
+				if (returns) {
+					source.append("\t\t\treturn ").append(call).append("\n");
+				} else {
+					source.append("\t\t\t").append(call).append("\n")
+						.append("\t\t\treturn;\n");
+				}
+			});
+			source.append("\t\tdefault:\n")
+				.append("\t\t\tthrow new IllegalArgumentException(\"no handler for exception value '\" + ")
+				.append(visitParameter).append(" + \"'\");\n")
+				.append("\t\t}\n")
+				.append("\t}\n")
+				.append("}\n");
+
+			String qualifiedName = packageName.isEmpty() ? visitorName : packageName + "." + visitorName;
+			try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+				writer.write(source.toString());
+			} catch (IOException e) {
+				error(type, annotation, format("cannot write %s: %s", qualifiedName, e.getMessage()));
+			}
+		}
+
+		/**
+		 * @return the simple names of the holder and the types enclosing it, joined by underscores, and the suffix.
+		 */
+		private String visitorName() {
+			Deque<String> names = new ArrayDeque<>();
+			for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+				names.addFirst(element.getSimpleName().toString());
+			}
+			return String.join("_", names) + SUFFIX;
+		}
+
+		@SuppressWarnings("unchecked")
+		private List<? extends AnnotationValue> asList(AnnotationValue value) {
+			// a single value may be written without braces, but is still reported as a list
+			return value.getValue() instanceof List ? (List<? extends AnnotationValue>) value.getValue()
+				: Collections.singletonList(value);
+		}
+
+		private void error(AnnotationValue value, String message) {
+			error(type, annotation, value, message);
+		}
+
+		private void error(Element element, AnnotationMirror mirror, String message) {
+			error(element, mirror, null, message);
+		}
+
+		private void error(Element element, AnnotationMirror mirror, AnnotationValue value, String message) {
+			failed = true;
+			messager.printMessage(Diagnostic.Kind.ERROR, message, element, mirror, value);
+		}
+	}
+}
@@ -0,0 +1,223 @@
+package com.mouyang.util.gof.processor;
+
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import javax.tools.*;
+
+import org.testng.annotations.Test;
+
+import com.mouyang.util.gof.GenerateEnumVisitor;
+
+public class EnumVisitorProcessorTest {
+
+	private static final String COLOR = "package test;\n"
+		+ "public enum Color { RED, GREEN, BLUE, BLACK }\n";
+
+	/**
+	 * The outcome of compiling some sources with the processor.
+	 */
+	private static class Compilation {
+		private final boolean success;
+		private final List<String> errors;
+		private final ClassLoader loader;
+
+		private Compilation(boolean success, List<String> errors, Path classes) throws IOException {
+			this.success = success;
+			this.errors = errors;
+			this.loader = new URLClassLoader(new URL[] { classes.toUri().toURL() });
+		}
+
+		private Class<?> load(String name) throws Exception {
+			return loader.loadClass(name);
+		}
+	}
+
+	private static Compilation compile(String... sources) throws IOException {
+		Path root = Files.createTempDirectory("enum-visitor");
+		Path classes = Files.createDirectories(root.resolve("classes"));
+		List<File> files = new ArrayList<>();
+		for (String source : sources) {
+			String name = source.replaceAll("(?s).*?\\b(?:class|interface|enum) (\\w+).*", "$1");
+			Path file = root.resolve(name + ".java");
+			Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+			files.add(file.toFile());
+		}
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+			String classpath = new File(GenerateEnumVisitor.class.getProtectionDomain().getCodeSource().getLocation()
+				.getPath()).getPath();
+			JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+				Arrays.asList("-classpath", classpath, "-d", classes.toString()), null,
+				fileManager.getJavaFileObjectsFromFiles(files));
+			task.setProcessors(Collections.singletonList(new EnumVisitorProcessor()));
+			boolean success = task.call();
+			List<String> errors = diagnostics.getDiagnostics().stream()
+				.filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+				.map(diagnostic -> diagnostic.getMessage(Locale.ROOT))
+				.collect(Collectors.toList());
+			return new Compilation(success, errors, classes);
+		}
+	}
+
+	private static void assertError(Compilation compilation, String message) {
+		assertFalse(compilation.success);
+		assertTrue(compilation.errors.stream().anyMatch(error -> error.contains(message)),
+			compilation.errors.toString());
+	}
+
+	@Test
+	public void generatesSwitch() throws Exception {
+		Compilation compilation = compile(COLOR,
+			"package test;\n"
+			+ "import com.mouyang.util.gof.*;\n"
+			+ "@GenerateEnumVisitor(value = Color.class, exceptions = \"BLACK\")\n"
+			+ "public interface ColorNames {\n"
+			+ "  @Visit(\"RED\") String red(String prefix, int e);\n"
+			+ "  @Visit({\"GREEN\", \"BLUE\"}) String cool(String prefix, int e);\n"
+			+ "}\n",
+			"package test;\n"
+			+ "public class Names implements ColorNames {\n"
+			+ "  public String red(String prefix, int e) { return prefix + \"red\" + e; }\n"
+			+ "  public String cool(String prefix, int e) { return prefix + \"cool\" + e; }\n"
+			+ "}\n");
+		assertTrue(compilation.success, compilation.errors.toString());
+		Class<?> color = compilation.load("test.Color");
+		Class<?> holder = compilation.load("test.ColorNames");
+		Class<?> visitorClass = compilation.load("test.ColorNamesVisitor");
+		Object visitor = visitorClass.getConstructor(holder).newInstance(compilation.load("test.Names").newInstance());
+		Method visit = visitorClass.getMethod("visit", color, String.class, int.class);
+		Object[] values = color.getEnumConstants();
+		assertEquals(visit.invoke(visitor, values[0], "a ", 1), "a red1");
+		assertEquals(visit.invoke(visitor, values[1], "a ", 2), "a cool2");
+		assertEquals(visit.invoke(visitor, values[2], "a ", 3), "a cool3");
+		try {
+			visit.invoke(visitor, values[3], "a ", 4);
+			fail("exception value visited");
+		} catch (InvocationTargetException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+	}
+
+	@Test
+	public void voidHandlersAndNestedHolder() throws Exception {
+		Compilation compilation = compile(COLOR,
+			"package test;\n"
+			+ "import com.mouyang.util.gof.*;\n"
+			+ "public class Outer {\n"
+			+ "  public static final StringBuilder LOG = new StringBuilder();\n"
+			+ "  @GenerateEnumVisitor(Color.class)\n"
+			+ "  static abstract class Log {\n"
+			+ "    @Visit({\"RED\", \"GREEN\", \"BLUE\"}) void color() throws java.io.IOException { LOG.append(\"color\"); }\n"
+			+ "    @Visit(\"BLACK\") void black() { LOG.append(\"black\"); }\n"
+			+ "  }\n"
+			+ "  public static void run() throws Exception {\n"
+			+ "    Outer_LogVisitor visitor = new Outer_LogVisitor(new Log() {});\n"
+			+ "    visitor.visit(Color.BLACK);\n"
+			+ "    visitor.visit(Color.RED);\n"
+			+ "  }\n"
+			+ "}\n");
+		assertTrue(compilation.success, compilation.errors.toString());
+		Class<?> outer = compilation.load("test.Outer");
+		outer.getMethod("run").invoke(null);
+		assertEquals(outer.getField("LOG").get(null).toString(), "blackcolor");
+	}
+
+	@Test
+	public void missingValue() throws Exception {
+		assertError(compile(COLOR,
+			"package test;\n"
+			+ "import com.mouyang.util.gof.*;\n"
+			+ "@GenerateEnumVisitor(Color.class)\n"
+			+ "interface Partial {\n"
+			+ "  @Visit(\"RED\") void red();\n"
+			+ "  @Visit(\"GREEN\") void green();\n"
+			+ "}\n"),
+			"add handlers for the following enum values ('BLUE,BLACK')");
+	}
+
+	@Test
+	public void unknownValue() throws Exception {
+		assertError(compile(COLOR,
+			"package test;\n"
+			+ "import com.mouyang.util.gof.*;\n"
+			+ "@GenerateEnumVisitor(value = Color.class, exceptions = {\"GREEN\", \"BLUE\", \"BLACK\"})\n"
+			+ "interface Unknown {\n"
+			+ "  @Visit({\"RED\", \"PURPLE\"}) void red();\n"
+			+ "}\n"),
+			"'PURPLE' is not a value of test.Color");
+	}
+
+	@Test
+	public void unknownException() throws Exception {
+		assertError(compile(COLOR,
+			"package test;\n"
+			+ "import com.mouyang.util.gof.*;\n"
+			+ "@GenerateEnumVisitor(value = Color.class, exceptions = {\"GREEN\", \"BLUE\", \"BLACK\", \"WHITE\"})\n"
+			+ "interface UnknownException {\n"
+			+ "  @Visit(\"RED\") void red();\n"
+			+ "}\n"),
+			"'WHITE' is not a value of test.Color");
+	}
+
+	@Test
+	public void handlerForException() throws Exception {
+		assertError(compile(COLOR,
+			"package test;\n"
+			+ "import com.mouyang.util.gof.*;\n"
+			+ "@GenerateEnumVisitor(value = Color.class, exceptions = \"BLACK\")\n"
+			+ "interface Exceptional {\n"
+			+ "  @Visit({\"RED\", \"GREEN\", \"BLUE\", \"BLACK\"}) void all();\n"
+			+ "}\n"),
+			"cannot add a handler for exception value 'BLACK'");
+	}
+
+	@Test
+	public void handledTwice() throws Exception {
+		assertError(compile(COLOR,
+			"package test;\n"
+			+ "import com.mouyang.util.gof.*;\n"
+			+ "@GenerateEnumVisitor(Color.class)\n"
+			+ "interface Twice {\n"
+			+ "  @Visit({\"RED\", \"GREEN\", \"BLUE\", \"BLACK\"}) void all();\n"
+			+ "  @Visit(\"RED\") void red();\n"
+			+ "}\n"),
+			"'RED' is already handled by all()");
+	}
+
+	@Test
+	public void differentSignatures() throws Exception {
+		assertError(compile(COLOR,
+			"package test;\n"
+			+ "import com.mouyang.util.gof.*;\n"
+			+ "@GenerateEnumVisitor(Color.class)\n"
+			+ "interface Mismatched {\n"
+			+ "  @Visit({\"RED\", \"GREEN\"}) int warm(String s);\n"
+			+ "  @Visit({\"BLUE\", \"BLACK\"}) int cool(Object o);\n"
+			+ "}\n"),
+			"@Visit methods must have the same parameters and return type as warm()");
+	}
+
+	@Test
+	public void visitOutsideHolder() throws Exception {
+		assertError(compile(
+			"package test;\n"
+			+ "import com.mouyang.util.gof.*;\n"
+			+ "interface Stray {\n"
+			+ "  @Visit(\"RED\") void red();\n"
+			+ "}\n"),
+			"@Visit methods must be declared in a @GenerateEnumVisitor type");
+	}
+}
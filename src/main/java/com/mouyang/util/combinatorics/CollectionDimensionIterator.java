@@ -1,11 +1,45 @@
 package com.mouyang.util.combinatorics;
 
+import java.io.*;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
-public class CollectionDimensionIterator implements Iterator<Object[]> {
+import com.mouyang.util.internal.Telemetry;
+
+/**
+ * Iterates over the cartesian product of collections.  The first collection varies fastest.
+ * <p>
+ * By default, a collection is iterated again from the start with <code>collection.iterator()</code> every time its 
+ * dimension rolls over.  Collections that are expensive to iterate (lazily loaded, backed by a database) or that may 
+ * change between iterations (concurrent) should instead be materialized with {@link #materialized(Collection[])}: 
+ * each collection is then iterated only once, and its elements are recorded into an array on the way, so that 
+ * rolling over is an index reset.
+ * </p>
+ * <p>
+ * Materializing a large collection can be bounded with {@link #materialized(Collection[], int)}.  Elements beyond the 
+ * bound are serialized to a temporary memory-mapped file and deserialized every time they are read, which means they 
+ * must be Serializable and that their identity is not preserved across rollovers.  The file is deleted once the first 
+ * pass over the collection is complete, or by {@link #close()} if iteration is abandoned before then.  Where a 
+ * mapped file cannot be deleted, as on Windows, it is deleted when the JVM exits instead.
+ * </p>
+ * 
+ * @author Matthew
+ *
+ */
+public class CollectionDimensionIterator implements Iterator<Object[]>, AutoCloseable {
+	
+	private static final int NOT_MATERIALIZED = -1;
 	
 	private PeekableIterator[] iterators;
 	private boolean hasRolledOver = false;
+	private long elements;
+	private long progress;
 	
 	/**
 	 * Implementation of iterator that resets when the current iteration runs out of elements. 
@@ -43,6 +77,195 @@ public class CollectionDimensionIterator implements Iterator<Object[]> {
 		}
 	}
 	
+	/**
+	 * Implementation of iterator that resets when the current iteration runs out of elements, recording elements the 
+	 * first time through so that later iterations do not go back to the collection.
+	 */
+	@SuppressWarnings("rawtypes")
+	private class MaterializingRolloverIterator implements Iterator {
+		private final int maxInMemoryElements;
+		private Iterator source;
+		private Object[] elements = new Object[16];
+		private int size;
+		private SpilledElements spilled;
+		private int cursor;
+		
+		public MaterializingRolloverIterator(Collection collection, int maxInMemoryElements) {
+			this.maxInMemoryElements = maxInMemoryElements;
+			this.source = collection.iterator();
+		}
+		
+		/**
+		 * Same as RolloverIterator, except that rolling over only resets the cursor.  The collection is released 
+		 * once it has been iterated through.
+		 */
+		@Override
+		public boolean hasNext() {
+			if (null != source) {
+				if (source.hasNext()) {
+					return true;
+				}
+				source = null;
+				if (null != spilled) {
+					spilled.finish();
+				}
+			} else if (cursor < size) {
+				return true;
+			}
+			cursor = 0;
+			return false;
+		}
+		
+		@Override
+		public Object next() {
+			if (null != source) {
+				return record(source.next());
+			}
+			if (cursor >= size) {
+				throw new NoSuchElementException();
+			}
+			final int index = cursor++;
+			return (index < maxInMemoryElements) ? elements[index] : spilled.get(index - maxInMemoryElements);
+		}
+		
+		private Object record(Object element) {
+			if (size < maxInMemoryElements) {
+				if (size == elements.length) {
+					elements = Arrays.copyOf(elements, (int) Math.min(maxInMemoryElements, 2L * size));
+				}
+				elements[size] = element;
+			} else {
+				if (null == spilled) {
+					spilled = new SpilledElements();
+				}
+				spilled.add(element);
+			}
+			size++;
+			return element;
+		}
+		
+		void close() {
+			if (null != spilled) {
+				spilled.close();
+			}
+		}
+	}
+	
+	/**
+	 * Elements serialized one after the other to a temporary file, which is memory-mapped for reading once all of 
+	 * them have been written.
+	 */
+	private static class SpilledElements {
+		private final Path path;
+		private int[] offsets = new int[16];
+		private int size;
+		private ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+		private OutputStream file;
+		private long length;
+		private MappedByteBuffer mapped;
+		
+		SpilledElements() {
+			try {
+				this.path = Files.createTempFile("dimension", ".spill");
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			try {
+				this.file = new BufferedOutputStream(Files.newOutputStream(path));
+			} catch (IOException e) {
+				close();
+				throw new UncheckedIOException(e);
+			}
+		}
+		
+		/**
+		 * The file is closed and deleted if the element cannot be written, since the iteration cannot go on.
+		 */
+		void add(Object object) {
+			try {
+				if (size + 1 >= offsets.length) {
+					offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+				}
+				serialized.reset();
+				try (ObjectOutputStream writer = new ObjectOutputStream(serialized)) {
+					writer.writeObject(object);
+				}
+				if (length + serialized.size() > Integer.MAX_VALUE) {
+					throw new IllegalStateException("cannot spill more than 2GB per dimension");
+				}
+				serialized.writeTo(file);
+				length += serialized.size();
+				offsets[++size] = (int) length;
+			} catch (IOException e) {
+				close();
+				throw new UncheckedIOException(e);
+			} catch (RuntimeException e) {
+				close();
+				throw e;
+			}
+		}
+		
+		void finish() {
+			try {
+				file.close();
+				file = null;
+				try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+					mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+				}
+			} catch (IOException e) {
+				close();
+				throw new UncheckedIOException(e);
+			}
+			serialized = null;
+			delete();
+		}
+		
+		/**
+		 * A mapped file cannot be deleted on some platforms, such as Windows, and the mapping is only released when 
+		 * the buffer is garbage collected, so the file is then left for the JVM to delete on exit.
+		 */
+		private void delete() {
+			try {
+				Files.deleteIfExists(path);
+			} catch (IOException e) {
+				path.toFile().deleteOnExit();
+			}
+		}
+		
+		/**
+		 * Closes and deletes the file if the first pass did not complete.  Otherwise the file has already been deleted, 
+		 * or left to be deleted on exit, and the mapping is released with the buffer.
+		 */
+		void close() {
+			try {
+				if (null != file) {
+					file.close();
+					file = null;
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				delete();
+			}
+		}
+		
+		Object get(int index) {
+			ByteBuffer slice = mapped.duplicate();
+			// cast so that the Java 8 signatures returning Buffer are linked against
+			((Buffer) slice).limit(offsets[index + 1]);
+			((Buffer) slice).position(offsets[index]);
+			byte[] bytes = new byte[slice.remaining()];
+			slice.get(bytes);
+			try (ObjectInputStream reader = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+				return reader.readObject();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} catch (ClassNotFoundException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+	
 	/**
 	 * Decorator for an existing iterator where a value can be retrived without moving the iterator cursor ahead.  This 
 	 * is done with the peek method.
@@ -81,15 +304,74 @@ public class CollectionDimensionIterator implements Iterator<Object[]> {
 	}
 	
 	public CollectionDimensionIterator(@SuppressWarnings("rawtypes") Collection[] collections) {
+		this(collections, NOT_MATERIALIZED);
+	}
+	
+	@SuppressWarnings("rawtypes")
+	private CollectionDimensionIterator(Collection[] collections, int maxInMemoryElements) {
 		if (null == collections || 0 == collections.length) {
 			throw new IllegalArgumentException("Must have at least one element.");
 		}
 		final int len = collections.length;
 		this.iterators = new PeekableIterator[len];
-		this.iterators[0] = new PeekableIterator(new RolloverIterator(collections[0]));
-		for (int i = 1; i < len; i++) {
-			this.iterators[i] = new PeekableIterator(new RolloverIterator(collections[i]));
-			this.iterators[i].next();
+		for (int i = 0; i < len; i++) {
+			this.iterators[i] = new PeekableIterator((NOT_MATERIALIZED == maxInMemoryElements) 
+				? new RolloverIterator(collections[i]) 
+				: new MaterializingRolloverIterator(collections[i], maxInMemoryElements));
+			if (i > 0) {
+				this.iterators[i].next();
+			}
+		}
+	}
+	
+	/**
+	 * Iterates over each collection only once, keeping all of their elements in memory.
+	 * 
+	 * @throws IllegalArgumentException if collections is null or is an empty array because there is nothing to 
+	 * iterate over.
+	 */
+	public static CollectionDimensionIterator materialized(@SuppressWarnings("rawtypes") Collection[] collections) {
+		return new CollectionDimensionIterator(collections, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Iterates over each collection only once, keeping at most maxInMemoryElements of each in memory and spilling 
+	 * the rest to a memory-mapped file.
+	 * <p>
+	 * Only the in-memory elements roll over as an array load.  A spilled element is read back with a new 
+	 * ObjectInputStream every time its dimension reaches it, so for the first (fastest varying) collection that is 
+	 * once per tuple.  The bound trades memory for that cost, and should be set high enough that spilling is the 
+	 * exception: a collection that is routinely spilled is better iterated again, with 
+	 * {@link #CollectionDimensionIterator(Collection[])}.
+	 * </p>
+	 * 
+	 * @throws IllegalArgumentException if collections is null or is an empty array, or if maxInMemoryElements is 
+	 * negative.
+	 */
+	public static CollectionDimensionIterator materialized(@SuppressWarnings("rawtypes") Collection[] collections, 
+			int maxInMemoryElements) {
+		if (maxInMemoryElements < 0) {
+			throw new IllegalArgumentException("maxInMemoryElements must not be negative");
+		}
+		return new CollectionDimensionIterator(collections, maxInMemoryElements);
+	}
+	
+	/**
+	 * Deletes the temporary files of a materialized iterator whose first pass over a spilled collection was abandoned, 
+	 * after which the iterator cannot be used.  Does nothing for any other iterator.
+	 */
+	@Override
+	public void close() {
+		for (PeekableIterator iterator : iterators) {
+			if (iterator.iterator instanceof MaterializingRolloverIterator) {
+				((MaterializingRolloverIterator) iterator.iterator).close();
+			}
+		}
+	}
+	
+	private void countProgress() {
+		if (0 == (++elements & (Telemetry.ITERATOR_PROGRESS_INTERVAL - 1))) {
+			progress = Telemetry.iteratorProgress(progress, CollectionDimensionIterator.class, elements);
 		}
 	}
 	
@@ -117,11 +399,25 @@ public class CollectionDimensionIterator implements Iterator<Object[]> {
 		if (hasRolledOver) {
 			throw new NoSuchElementException("");
 		}
+		countProgress();
 		Object[] next = new Object[iterators.length];
 		for (int i = 0; i < iterators.length; i++) {
 			next[i] = iterators[i].peek();
 		}
 		return next;
 	}
+	
+	/**
+	 * Same as next, except that the tuple is written into a row of per-dimension arrays instead of a new array.
+	 */
+	void next(Object[][] columns, int row) {
+		if (hasRolledOver) {
+			throw new NoSuchElementException("");
+		}
+		countProgress();
+		for (int i = 0; i < iterators.length; i++) {
+			columns[i][row] = iterators[i].peek();
+		}
+	}
 
 }
@@ -0,0 +1,287 @@
+package com.mouyang.util.combinatorics;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Iterates over nested loops where the range of each loop may depend on the current values of the loops enclosing it,
+ * such as triangular sweeps or traversals of adjacency lists.
+ * <p>
+ * Unlike {@link IndexDimensionIterator}, dimensions are declared from the outermost to the innermost, and the
+ * <b>last</b> dimension varies fastest, as in the nested loops they replace.  The following are equivalent
+ * </p>
+ * <blockquote><pre>
+ * for (int i = 0; i &lt; n; i++) {
+ *     for (int j = i; j &lt; n; j++) {
+ *         for (int k : neighbours[j]) {
+ *             ...
+ *         }
+ *     }
+ * }
+ * </pre></blockquote>
+ * <blockquote><pre>
+ * DependentIndexIterator iterator = DependentIndexIterator.builder()
+ *     .range(0, n)
+ *     .range(c -&gt; c[0], c -&gt; n)
+ *     .values(c -&gt; neighbours[c[1]])
+ *     .build();
+ * while (iterator.hasNext()) {
+ *     int[] c = iterator.next();
+ *     ...
+ * }
+ * </pre></blockquote>
+ * <p>
+ * The functions defining a dimension are given the current coordinates, of which only those of the enclosing
+ * dimensions are meaningful.  They are evaluated each time the dimension restarts, and must not modify the array.
+ * Arrays returned by a values function are not copied.  A dimension with an empty range skips to the next value of its
+ * enclosing dimension, as an empty inner loop would.
+ * </p>
+ * <p>
+ * Every call to next returns the same array, updated in place, so iterating allocates nothing beyond what the
+ * functions themselves allocate.  {@link #spliterator()} divides the outermost dimension for parallel traversal; each
+ * part then has its own coordinate array.
+ * </p>
+ *
+ * @author Matthew
+ *
+ */
+public class DependentIndexIterator implements Iterator<int[]> {
+	private static final int UNKNOWN = 0;
+	private static final int READY = 1;
+	private static final int DONE = 2;
+
+	private final ToIntFunction<int[]>[] froms;
+	private final ToIntFunction<int[]>[] tos;
+	private final Function<int[], int[]>[] valueFunctions;
+
+	private final int[] coordinates;
+	private final int[] positions;
+	private final int[] limits;
+	private final int[][] values;
+	private int outerFrom;
+	private int outerTo;
+	private boolean started;
+	private int state = UNKNOWN;
+
+	private DependentIndexIterator(ToIntFunction<int[]>[] froms, ToIntFunction<int[]>[] tos,
+			Function<int[], int[]>[] valueFunctions, int[] outerValues, int outerFrom, int outerTo) {
+		final int len = froms.length;
+		this.froms = froms;
+		this.tos = tos;
+		this.valueFunctions = valueFunctions;
+		this.coordinates = new int[len];
+		this.positions = new int[len];
+		this.limits = new int[len];
+		this.values = new int[len][];
+		this.values[0] = outerValues;
+		this.outerFrom = outerFrom;
+		this.outerTo = outerTo;
+	}
+
+	/**
+	 * Dimensions are added from the outermost to the innermost, so the last one added varies fastest and index 0 of
+	 * the coordinates is the outermost loop.  This is the opposite of {@link IndexDimensionIterator} and
+	 * {@link SharedProductSource}, where index 0 varies fastest.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (UNKNOWN == state) {
+			state = advance() ? READY : DONE;
+		}
+		return READY == state;
+	}
+
+	@Override
+	public int[] next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException("");
+		}
+		state = UNKNOWN;
+		return coordinates;
+	}
+
+	/**
+	 * @return a Spliterator over the remaining coordinates, which splits the outermost dimension until iteration has
+	 * started.
+	 */
+	public Spliterator<int[]> spliterator() {
+		return new DependentIndexSpliterator(this);
+	}
+
+	/**
+	 * Moves to the next valid set of coordinates, restarting inner dimensions as outer ones advance.
+	 *
+	 * @return false if there are no coordinates left.
+	 */
+	private boolean advance() {
+		final int last = coordinates.length - 1;
+		int d;
+		if (started) {
+			d = last;
+		} else {
+			started = true;
+			d = 0;
+			positions[0] = outerFrom - 1;
+			limits[0] = outerTo;
+		}
+		while (true) {
+			if (++positions[d] < limits[d]) {
+				coordinates[d] = (null == values[d]) ? positions[d] : values[d][positions[d]];
+				if (d == last) {
+					return true;
+				}
+				restart(++d);
+			} else if (0 == d) {
+				return false;
+			} else {
+				d--;
+			}
+		}
+	}
+
+	/**
+	 * Positions a dimension just before its first value, so that advancing it moves onto that value.
+	 */
+	private void restart(int d) {
+		if (null != valueFunctions[d]) {
+			values[d] = valueFunctions[d].apply(coordinates);
+			positions[d] = -1;
+			limits[d] = values[d].length;
+		} else {
+			positions[d] = froms[d].applyAsInt(coordinates) - 1;
+			limits[d] = tos[d].applyAsInt(coordinates);
+		}
+	}
+
+	/**
+	 * Splits off the first half of the outermost dimension into a new iterator, which this iterator will no longer
+	 * cover.
+	 *
+	 * @return null if iteration has started or if the outermost dimension cannot be split further.
+	 */
+	private DependentIndexIterator trySplit() {
+		if (started || outerTo - outerFrom < 2) {
+			return null;
+		}
+		final int middle = (outerFrom + outerTo) >>> 1;
+		DependentIndexIterator prefix = new DependentIndexIterator(froms, tos, valueFunctions, values[0], outerFrom,
+			middle);
+		outerFrom = middle;
+		return prefix;
+	}
+
+	private static class DependentIndexSpliterator implements Spliterator<int[]> {
+		private DependentIndexIterator iterator;
+
+		DependentIndexSpliterator(DependentIndexIterator iterator) {
+			this.iterator = iterator;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super int[]> action) {
+			if (!iterator.hasNext()) {
+				return false;
+			}
+			action.accept(iterator.next());
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super int[]> action) {
+			while (iterator.hasNext()) {
+				action.accept(iterator.next());
+			}
+		}
+
+		@Override
+		public Spliterator<int[]> trySplit() {
+			DependentIndexIterator split = iterator.trySplit();
+			return (null == split) ? null : new DependentIndexSpliterator(split);
+		}
+
+		/**
+		 * The number of remaining values of the outermost dimension, as the sizes of the inner dimensions are not
+		 * known in advance.
+		 */
+		@Override
+		public long estimateSize() {
+			return iterator.started ? Long.MAX_VALUE : iterator.outerTo - iterator.outerFrom;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | NONNULL;
+		}
+	}
+
+	/**
+	 * Collects the dimensions, from the outermost to the innermost: the last dimension added varies fastest, unlike
+	 * the first dimension of {@link IndexDimensionIterator}.
+	 *
+	 * @author Matthew
+	 *
+	 */
+	public static class Builder {
+		private final List<ToIntFunction<int[]>> froms = new ArrayList<>();
+		private final List<ToIntFunction<int[]>> tos = new ArrayList<>();
+		private final List<Function<int[], int[]>> valueFunctions = new ArrayList<>();
+
+		private Builder() {
+		}
+
+		/**
+		 * Adds a dimension over [from, to).
+		 */
+		public Builder range(int from, int to) {
+			return range(c -> from, c -> to);
+		}
+
+		/**
+		 * Adds a dimension over [from, to), both computed from the coordinates of the enclosing dimensions.
+		 */
+		public Builder range(ToIntFunction<int[]> from, ToIntFunction<int[]> to) {
+			froms.add(Objects.requireNonNull(from, "from"));
+			tos.add(Objects.requireNonNull(to, "to"));
+			valueFunctions.add(null);
+			return this;
+		}
+
+		/**
+		 * Adds a dimension over the elements of an array computed from the coordinates of the enclosing dimensions.
+		 */
+		public Builder values(Function<int[], int[]> values) {
+			froms.add(null);
+			tos.add(null);
+			valueFunctions.add(Objects.requireNonNull(values, "values"));
+			return this;
+		}
+
+		/**
+		 * @throws IllegalArgumentException if no dimensions have been added because there is nothing to iterate over.
+		 */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		public DependentIndexIterator build() {
+			final int len = froms.size();
+			if (0 == len) {
+				throw new IllegalArgumentException("Must have at least one element");
+			}
+			ToIntFunction<int[]>[] fromArray = froms.toArray(new ToIntFunction[len]);
+			ToIntFunction<int[]>[] toArray = tos.toArray(new ToIntFunction[len]);
+			Function<int[], int[]>[] valueArray = valueFunctions.toArray(new Function[len]);
+			// the outermost dimension depends on nothing, so it is evaluated once to allow splitting
+			int[] none = new int[len];
+			if (null != valueArray[0]) {
+				int[] outerValues = valueArray[0].apply(none);
+				return new DependentIndexIterator(fromArray, toArray, valueArray, outerValues, 0, outerValues.length);
+			}
+			return new DependentIndexIterator(fromArray, toArray, valueArray, null,
+				fromArray[0].applyAsInt(none), toArray[0].applyAsInt(none));
+		}
+	}
+}
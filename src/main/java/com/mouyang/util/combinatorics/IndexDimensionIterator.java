@@ -3,6 +3,8 @@ package com.mouyang.util.combinatorics;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
+import com.mouyang.util.internal.Telemetry;
+
 /**
  * This form of dimension iterator is useful for Lists and primitive arrays.  It can't be used for java.util.Collection 
  * because not all Collections have an index (example java.util.Set).
@@ -14,6 +16,8 @@ public class IndexDimensionIterator implements Iterator<int[]> {
 	
 	private final int[] sizes;
 	private int[] currentIteration;
+	private long elements;
+	private long progress;
 	
 	/**
 	 * @param lengths
@@ -42,14 +46,30 @@ public class IndexDimensionIterator implements Iterator<int[]> {
 
 	@Override
 	public int[] next() {
+		if (0 == (++elements & (Telemetry.ITERATOR_PROGRESS_INTERVAL - 1))) {
+			progress = Telemetry.iteratorProgress(progress, IndexDimensionIterator.class, elements);
+		}
+		if (increment(sizes, currentIteration)) {
+			return currentIteration;
+		}
+		throw new NoSuchElementException("");
+	}
+	
+	/**
+	 * Advances the indices in place to the next tuple, index 0 varying fastest.  Shared with 
+	 * {@link SharedProductSource}, so that both produce tuples in the same order.
+	 * 
+	 * @return false if every index rolled over, i.e. the indices were those of the last tuple.
+	 */
+	static boolean increment(int[] sizes, int[] indices) {
 		for (int i = 0; i < sizes.length; i++) {
-			if (sizes[i] == ++currentIteration[i]) {
+			if (sizes[i] == ++indices[i]) {
 				// rollover case
-				currentIteration[i] = 0;
+				indices[i] = 0;
 			} else {
-				return currentIteration;
+				return true;
 			}
 		}
-		throw new NoSuchElementException("");
+		return false;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package com.mouyang.util.combinatorics;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Iterates over the cartesian product of long arrays without boxing.  The first array varies fastest, as with
+ * {@link IndexDimensionIterator}.
+ * <p>
+ * Every call to next returns the same array, updated in place with the values of the next tuple, so it must be copied
+ * if it is to be kept.  {@link #forEachRemaining(Consumer)} is the fastest way to traverse the product: the fastest
+ * varying dimension becomes a plain loop, and the other dimensions are only updated when they roll over.
+ * </p>
+ * <p>
+ * The dimension arrays are not copied, and must not be modified during iteration.  If any of them is empty, the
+ * product is empty.
+ * </p>
+ *
+ * @author Matthew
+ *
+ */
+public class LongProduct implements Iterator<long[]> {
+
+	private final long[][] dimensions;
+	private final int[] indices;
+	private final long[] values;
+	private boolean started;
+	private boolean empty;
+
+	/**
+	 * @throws IllegalArgumentException if dimensions is null or is an empty array because there is nothing to iterate
+	 * over.
+	 */
+	public LongProduct(long[]... dimensions) {
+		if (null == dimensions || 0 == dimensions.length) {
+			throw new IllegalArgumentException("Must have at least one element");
+		}
+		this.dimensions = dimensions;
+		this.indices = new int[dimensions.length];
+		this.values = new long[dimensions.length];
+		for (int i = 0; i < dimensions.length; i++) {
+			if (0 == dimensions[i].length) {
+				empty = true;
+			} else {
+				values[i] = dimensions[i][0];
+			}
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (empty) {
+			return false;
+		}
+		if (!started) {
+			return true;
+		}
+		for (int i = 0; i < dimensions.length; i++) {
+			if (indices[i] < dimensions[i].length - 1) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public long[] next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException("");
+		}
+		if (!started) {
+			started = true;
+			return values;
+		}
+		for (int i = 0; i < dimensions.length; i++) {
+			if (++indices[i] == dimensions[i].length) {
+				// rollover case
+				indices[i] = 0;
+				values[i] = dimensions[i][0];
+			} else {
+				values[i] = dimensions[i][indices[i]];
+				break;
+			}
+		}
+		return values;
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super long[]> action) {
+		if (!hasNext()) {
+			return;
+		}
+		int start = started ? indices[0] + 1 : 0;
+		started = true;
+		final long[] fastest = dimensions[0];
+		do {
+			for (int j = start; j < fastest.length; j++) {
+				values[0] = fastest[j];
+				action.accept(values);
+			}
+			indices[0] = fastest.length - 1;
+			start = 0;
+		} while (carry());
+		exhaust();
+	}
+
+	/**
+	 * Advances the dimensions other than the fastest varying one, rolling them over as needed.
+	 *
+	 * @return false if every dimension has rolled over.
+	 */
+	private boolean carry() {
+		for (int i = 1; i < dimensions.length; i++) {
+			if (++indices[i] == dimensions[i].length) {
+				indices[i] = 0;
+				values[i] = dimensions[i][0];
+			} else {
+				values[i] = dimensions[i][indices[i]];
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Leaves every dimension on its last value, which is the state next leaves the iterator in after the last tuple.
+	 */
+	private void exhaust() {
+		for (int i = 0; i < dimensions.length; i++) {
+			indices[i] = dimensions[i].length - 1;
+			values[i] = dimensions[i][indices[i]];
+		}
+	}
+}
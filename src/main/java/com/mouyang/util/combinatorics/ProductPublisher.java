@@ -0,0 +1,283 @@
+package com.mouyang.util.combinatorics;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Publishes the cartesian product of collections to a Reactive Streams subscriber, in batches of tuples.  The order of
+ * the tuples is that of {@link CollectionDimensionIterator}, the first collection varying fastest.
+ * <p>
+ * Each subscriber gets its own pass over the product, and receives no more batches than it has requested.  The batch
+ * is stored by column, one array per dimension, and the same {@link TupleBatch} is refilled for every call to onNext,
+ * so its contents are only valid until onNext returns.  Every batch but the last is full.
+ * </p>
+ * <p>
+ * Batches are delivered either on the thread that calls request, or on an executor given at construction.  Either way,
+ * delivery to a subscriber is serialized, and a request made from within onNext does not recurse.  The optional
+ * org.reactivestreams dependency must be on the class path to use this class; {@code java.util.concurrent.Flow} users
+ * can adapt it with {@code org.reactivestreams.FlowAdapters.toFlowPublisher}.
+ * </p>
+ *
+ * @author Matthew
+ *
+ */
+public class ProductPublisher implements Publisher<ProductPublisher.TupleBatch> {
+
+	@SuppressWarnings("rawtypes")
+	private final Collection[] collections;
+	private final int batchSize;
+	private final Executor executor;
+
+	/**
+	 * A batch of tuples, stored by column.  The value of dimension d for the tuple in row r is
+	 * <code>column(d)[r]</code>, for rows up to {@link #size()}.
+	 *
+	 * @author Matthew
+	 *
+	 */
+	public static class TupleBatch {
+		private final Object[][] columns;
+		private int size;
+
+		private TupleBatch(int dimensions, int capacity) {
+			this.columns = new Object[dimensions][capacity];
+		}
+
+		/**
+		 * @return the number of tuples in this batch.
+		 */
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * @return the number of dimensions of each tuple.
+		 */
+		public int dimensions() {
+			return columns.length;
+		}
+
+		/**
+		 * @return the values of one dimension for every tuple of this batch.  Entries past {@link #size()} are left over
+		 * from previous batches.
+		 */
+		public Object[] column(int dimension) {
+			return columns[dimension];
+		}
+
+		public Object get(int dimension, int row) {
+			if (row >= size) {
+				throw new IndexOutOfBoundsException("row " + row + " of " + size);
+			}
+			return columns[dimension][row];
+		}
+	}
+
+	/**
+	 * Delivers batches on the thread calling request.
+	 *
+	 * @throws IllegalArgumentException if collections is null or is an empty array because there is nothing to iterate
+	 * over, or if batchSize is not positive.
+	 */
+	public ProductPublisher(@SuppressWarnings("rawtypes") Collection[] collections, int batchSize) {
+		this(collections, batchSize, Runnable::run);
+	}
+
+	/**
+	 * Delivers batches on the given executor.
+	 *
+	 * @throws IllegalArgumentException if collections is null or is an empty array because there is nothing to iterate
+	 * over, or if batchSize is not positive.
+	 */
+	public ProductPublisher(@SuppressWarnings("rawtypes") Collection[] collections, int batchSize, Executor executor) {
+		if (null == collections || 0 == collections.length) {
+			throw new IllegalArgumentException("Must have at least one element");
+		}
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be positive");
+		}
+		this.collections = collections.clone();
+		this.batchSize = batchSize;
+		this.executor = Objects.requireNonNull(executor, "executor");
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super TupleBatch> subscriber) {
+		Objects.requireNonNull(subscriber, "subscriber");
+		new ProductSubscription(subscriber).start();
+	}
+
+	/**
+	 * One subscriber's pass over the product.  Whichever thread moves work in progress off zero runs the drain loop,
+	 * and other threads only record that it has more to do.
+	 */
+	private class ProductSubscription implements Subscription, Runnable {
+		private final Subscriber<? super TupleBatch> subscriber;
+		private final AtomicLong requested = new AtomicLong();
+		private final AtomicInteger workInProgress = new AtomicInteger();
+		private CollectionDimensionIterator iterator;
+		private TupleBatch batch;
+		private Throwable invalidRequest;
+		private volatile boolean cancelled;
+		private boolean done;
+		/** Whether the iterator has moved onto a tuple that has not been emitted yet. */
+		private boolean pending;
+
+		ProductSubscription(Subscriber<? super TupleBatch> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		void start() {
+			// holding work in progress means that requests made within onSubscribe are only drained once it returns
+			workInProgress.set(1);
+			subscriber.onSubscribe(this);
+			executor.execute(this);
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				invalidRequest = new IllegalArgumentException("request must be positive, was " + n);
+			} else {
+				long current;
+				long next;
+				do {
+					current = requested.get();
+					next = current + n;
+					if (next < 0) {
+						next = Long.MAX_VALUE;
+					}
+				} while (!requested.compareAndSet(current, next));
+			}
+			schedule();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			schedule();
+		}
+
+		private void schedule() {
+			if (0 == workInProgress.getAndIncrement()) {
+				executor.execute(this);
+			}
+		}
+
+		/**
+		 * The drain loop: emits as many batches as have been requested, then goes round again if more work arrived in
+		 * the meantime.
+		 */
+		@Override
+		public void run() {
+			int missed = 1;
+			do {
+				if (!done) {
+					drain();
+				}
+				missed = workInProgress.addAndGet(-missed);
+			} while (0 != missed);
+		}
+
+		private void drain() {
+			if (cancelled) {
+				finish();
+				return;
+			}
+			if (null != invalidRequest) {
+				finish();
+				subscriber.onError(invalidRequest);
+				return;
+			}
+			long emitted = 0;
+			long demand = requested.get();
+			try {
+				if (null == iterator) {
+					if (isEmpty()) {
+						finish();
+						subscriber.onComplete();
+						return;
+					}
+					iterator = new CollectionDimensionIterator(collections);
+					batch = new TupleBatch(collections.length, batchSize);
+				}
+				while (emitted != demand) {
+					if (cancelled) {
+						finish();
+						return;
+					}
+					if (!fill()) {
+						finish();
+						subscriber.onComplete();
+						return;
+					}
+					subscriber.onNext(batch);
+					emitted++;
+				}
+				if (!pending && !iterator.hasNext()) {
+					finish();
+					subscriber.onComplete();
+					return;
+				}
+				// hasNext moved onto the next tuple, which the next fill picks up
+				pending = true;
+			} catch (RuntimeException e) {
+				if (!done) {
+					finish();
+					subscriber.onError(e);
+				}
+				return;
+			}
+			if (0 != emitted && Long.MAX_VALUE != demand) {
+				requested.addAndGet(-emitted);
+			}
+		}
+
+		/**
+		 * Fills the batch with up to batchSize tuples.
+		 *
+		 * @return false if there were no tuples left.
+		 */
+		private boolean fill() {
+			int size = 0;
+			while (size < batchSize && (pending || iterator.hasNext())) {
+				pending = false;
+				iterator.next(batch.columns, size++);
+			}
+			batch.size = size;
+			return 0 != size;
+		}
+
+		private boolean isEmpty() {
+			for (@SuppressWarnings("rawtypes") Collection collection : collections) {
+				if (collection.isEmpty()) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Releases the product so that nothing more is sent, and so that it can be collected even if the subscriber
+		 * holds on to the subscription.
+		 */
+		private void finish() {
+			done = true;
+			iterator = null;
+			if (null != batch) {
+				for (Object[] column : batch.columns) {
+					Arrays.fill(column, null);
+				}
+				batch = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,259 @@
+package com.mouyang.util.combinatorics;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Shares the index tuples of a cartesian product between worker threads, which claim them in chunks as they become
+ * free rather than being handed a fixed share up front.  This keeps every worker busy when the cost of processing a
+ * tuple varies widely.
+ * <p>
+ * Tuples are numbered by rank in the order {@link IndexDimensionIterator} produces them, index 0 varying fastest.  A
+ * single atomic cursor hands out contiguous ranges of ranks, so claiming a chunk takes no lock.  Chunk sizes follow
+ * guided scheduling: each claim takes a share of what remains, divided between the expected number of workers, so
+ * early chunks are large and cheap to hand out and the last ones are small enough to even out the finish.  Chunks
+ * never shrink below the minimum size given at construction.
+ * </p>
+ * <p>
+ * Each worker should keep a single {@link Chunk}, created by {@link #newChunk()}, and refill it with
+ * {@link #claim(Chunk)}.  A chunk decodes its first rank into indices once and then advances them in place, so
+ * iterating allocates nothing.  {@link #drain(Consumer)} does all of this for a worker in one call.
+ * </p>
+ * <blockquote><pre>
+ * SharedProductSource source = new SharedProductSource(new int[] { rows, columns }, threads, 16);
+ * for (int i = 0; i &lt; threads; i++) {
+ *     executor.execute(() -&gt; source.drain(indices -&gt; process(indices[0], indices[1])));
+ * }
+ * </pre></blockquote>
+ *
+ * @author Matthew
+ *
+ */
+public class SharedProductSource {
+	private static final int DEFAULT_MIN_CHUNK_SIZE = 1;
+
+	private final int[] sizes;
+	private final long total;
+	private final int workers;
+	private final long minChunkSize;
+	private final AtomicLong cursor = new AtomicLong();
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder chunks = new LongAdder();
+
+	/**
+	 * A contiguous range of ranks claimed by one worker.  It is not thread safe, and is meant to be reused by the
+	 * worker that created it for every claim it makes.
+	 *
+	 * @author Matthew
+	 *
+	 */
+	public class Chunk implements Iterator<int[]> {
+		private final int[] indices = new int[sizes.length];
+		private long start;
+		private long next;
+		private long end;
+		private boolean reported = true;
+
+		private Chunk() {
+		}
+
+		/**
+		 * @return the rank of the first tuple in this chunk.
+		 */
+		public long from() {
+			return start;
+		}
+
+		/**
+		 * @return the rank after the last tuple in this chunk.
+		 */
+		public long to() {
+			return end;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (next < end) {
+				return true;
+			}
+			report();
+			return false;
+		}
+
+		/**
+		 * @return the indices of the next tuple, updated in place.
+		 */
+		@Override
+		public int[] next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException("");
+			}
+			if (next++ != start) {
+				IndexDimensionIterator.increment(sizes, indices);
+			}
+			return indices;
+		}
+
+		private SharedProductSource source() {
+			return SharedProductSource.this;
+		}
+
+		private void assign(long from, long to) {
+			report();
+			start = from;
+			next = from;
+			end = to;
+			reported = false;
+			if (from == to) {
+				return;
+			}
+			long rank = from;
+			for (int i = 0; i < indices.length; i++) {
+				indices[i] = (int) (rank % sizes[i]);
+				rank /= sizes[i];
+			}
+		}
+
+		/**
+		 * Counts this chunk as completed the first time it is found to be exhausted.
+		 */
+		private void report() {
+			if (!reported) {
+				reported = true;
+				completed.add(end - start);
+			}
+		}
+	}
+
+	/**
+	 * Shares the product between an unknown number of workers, in chunks of at least one tuple.
+	 *
+	 * @param lengths the size of each dimension, as with {@link IndexDimensionIterator}.
+	 * @throws IllegalArgumentException if lengths is null or is an empty array because there is nothing to iterate over.
+	 */
+	public SharedProductSource(int[] lengths) {
+		this(lengths, Runtime.getRuntime().availableProcessors(), DEFAULT_MIN_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param lengths the size of each dimension, as with {@link IndexDimensionIterator}.
+	 * @param workers the number of threads expected to claim chunks, used to size them.
+	 * @param minChunkSize the smallest number of tuples to hand out at once, except for the last chunk.
+	 * @throws IllegalArgumentException if lengths is null or is an empty array because there is nothing to iterate over,
+	 * if a length is negative, if the product has more than Long.MAX_VALUE tuples, or if workers or minChunkSize is not
+	 * positive.
+	 */
+	public SharedProductSource(int[] lengths, int workers, long minChunkSize) {
+		if (null == lengths || 0 == lengths.length) {
+			throw new IllegalArgumentException("Must have at least one element");
+		}
+		if (workers < 1) {
+			throw new IllegalArgumentException("workers must be positive");
+		}
+		if (minChunkSize < 1) {
+			throw new IllegalArgumentException("minChunkSize must be positive");
+		}
+		long product = 1;
+		for (int length : lengths) {
+			if (length < 0) {
+				throw new IllegalArgumentException("lengths must not be negative");
+			}
+			try {
+				product = Math.multiplyExact(product, length);
+			} catch (ArithmeticException e) {
+				throw new IllegalArgumentException("The product has more than Long.MAX_VALUE tuples", e);
+			}
+		}
+		this.sizes = lengths.clone();
+		this.total = product;
+		this.workers = workers;
+		this.minChunkSize = minChunkSize;
+	}
+
+	/**
+	 * @return an empty chunk for a worker to fill with {@link #claim(Chunk)}.
+	 */
+	public Chunk newChunk() {
+		return new Chunk();
+	}
+
+	/**
+	 * Claims the next range of tuples into the given chunk, replacing the range it held.  The previous range counts as
+	 * completed whether or not it was fully iterated.
+	 *
+	 * @return false if every tuple has already been claimed, in which case the chunk is left empty.
+	 * @throws IllegalArgumentException if the chunk was created by another source.
+	 */
+	public boolean claim(Chunk chunk) {
+		if (this != chunk.source()) {
+			throw new IllegalArgumentException("The chunk belongs to another source");
+		}
+		long from;
+		long to;
+		do {
+			from = cursor.get();
+			if (from >= total) {
+				chunk.assign(total, total);
+				return false;
+			}
+			long remaining = total - from;
+			long size = Math.max(minChunkSize, remaining / (2L * workers));
+			to = (size >= remaining) ? total : from + size;
+		} while (!cursor.compareAndSet(from, to));
+		chunks.increment();
+		chunk.assign(from, to);
+		return true;
+	}
+
+	/**
+	 * Claims and processes chunks until the product is exhausted.  Meant to be called by each worker thread.  The array
+	 * passed to the action is updated in place, so it must be copied if it is to be kept.
+	 */
+	public void drain(Consumer<? super int[]> action) {
+		Chunk chunk = newChunk();
+		while (claim(chunk)) {
+			while (chunk.hasNext()) {
+				action.accept(chunk.next());
+			}
+		}
+	}
+
+	/**
+	 * @return the number of tuples in the product.
+	 */
+	public long size() {
+		return total;
+	}
+
+	/**
+	 * @return the number of tuples handed out to workers so far.
+	 */
+	public long claimed() {
+		return Math.min(cursor.get(), total);
+	}
+
+	/**
+	 * @return the number of tuples in chunks that workers have finished with.  Lags behind the true count while chunks
+	 * are being iterated.
+	 */
+	public long completed() {
+		return completed.sum();
+	}
+
+	/**
+	 * @return the number of chunks handed out so far.
+	 */
+	public long chunks() {
+		return chunks.sum();
+	}
+
+	/**
+	 * @return true once every tuple has been claimed, though workers may still be processing them.
+	 */
+	public boolean isExhausted() {
+		return cursor.get() >= total;
+	}
+}
@@ -0,0 +1,163 @@
+package com.mouyang.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+
+/**
+ * An Executor that collects tasks and hands them to a delegate Executor in batches, so that many small side effects
+ * cost one hand-off instead of one each.
+ * <p>
+ * A batch is flushed when it reaches the maximum batch size, or when the window has elapsed since its first task was
+ * added, whichever comes first.  Tasks within a batch are executed sequentially in the order they were submitted by a
+ * single task of the delegate.  A task that throws does not prevent the remaining tasks of its batch from executing; the
+ * first exception is rethrown once the batch completes, with any others suppressed.
+ * </p>
+ * <p>
+ * If the delegate rejects a batch, the batch is run on the thread that flushed it instead of being dropped: the caller
+ * of {@link #execute(Runnable)} that filled it, the caller of {@link #flush()}, or the scheduler thread once the
+ * window elapses.
+ * </p>
+ * <p>
+ * No threads are created by this class.  The window is timed by the given ScheduledExecutorService, which is not shut
+ * down by {@link #close()}.
+ * </p>
+ *
+ * @author Matthew
+ *
+ */
+public class BatchingExecutor implements Executor, AutoCloseable {
+	private final Executor delegate;
+	private final int maxBatchSize;
+	private final long windowNanos;
+	private final ScheduledExecutorService scheduler;
+
+	private final Object lock = new Object();
+	private List<Runnable> batch;
+	private ScheduledFuture<?> scheduledFlush;
+	private boolean closed;
+
+	/**
+	 * @throws IllegalArgumentException if maxBatchSize is not positive or the window is negative.
+	 */
+	public BatchingExecutor(Executor delegate, int maxBatchSize, long window, TimeUnit unit,
+			ScheduledExecutorService scheduler) {
+		if (maxBatchSize < 1) {
+			throw new IllegalArgumentException("maxBatchSize must be positive");
+		}
+		if (window < 0) {
+			throw new IllegalArgumentException("window must not be negative");
+		}
+		this.delegate = Objects.requireNonNull(delegate, "delegate");
+		this.maxBatchSize = maxBatchSize;
+		this.windowNanos = unit.toNanos(window);
+		this.scheduler = Objects.requireNonNull(scheduler, "scheduler");
+		this.batch = new ArrayList<>(maxBatchSize);
+	}
+
+	/**
+	 * @throws RejectedExecutionException if this executor has been closed.
+	 */
+	@Override
+	public void execute(Runnable command) {
+		Objects.requireNonNull(command, "command");
+		List<Runnable> full = null;
+		synchronized (lock) {
+			if (closed) {
+				throw new RejectedExecutionException("executor has been closed");
+			}
+			batch.add(command);
+			if (batch.size() >= maxBatchSize) {
+				full = takeBatch();
+			} else if (1 == batch.size()) {
+				final List<Runnable> started = batch;
+				scheduledFlush = scheduler.schedule(() -> flush(started), windowNanos, TimeUnit.NANOSECONDS);
+			}
+		}
+		submit(full);
+	}
+
+	/**
+	 * Hands the current batch to the delegate without waiting for the window to elapse.
+	 */
+	public void flush() {
+		List<Runnable> pending;
+		synchronized (lock) {
+			pending = takeBatch();
+		}
+		submit(pending);
+	}
+
+	/**
+	 * Hands the batch to the delegate if it is still the current one.  A scheduled flush is not stopped by cancellation
+	 * once it has started, so it must not flush a batch started after the one it was scheduled for.
+	 */
+	private void flush(List<Runnable> scheduledBatch) {
+		List<Runnable> pending = null;
+		synchronized (lock) {
+			if (scheduledBatch == batch) {
+				pending = takeBatch();
+			}
+		}
+		submit(pending);
+	}
+
+	/**
+	 * Flushes the current batch and rejects any further tasks.
+	 */
+	@Override
+	public void close() {
+		synchronized (lock) {
+			closed = true;
+		}
+		flush();
+	}
+
+	/**
+	 * Must be called while holding the lock.
+	 *
+	 * @return the current batch, or null if it is empty.
+	 */
+	private List<Runnable> takeBatch() {
+		if (null != scheduledFlush) {
+			scheduledFlush.cancel(false);
+			scheduledFlush = null;
+		}
+		if (batch.isEmpty()) {
+			return null;
+		}
+		List<Runnable> taken = batch;
+		batch = new ArrayList<>(maxBatchSize);
+		return taken;
+	}
+
+	private void submit(List<Runnable> tasks) {
+		if (null == tasks) {
+			return;
+		}
+		try {
+			delegate.execute(() -> runAll(tasks));
+		} catch (RejectedExecutionException e) {
+			runAll(tasks);
+		}
+	}
+
+	private static void runAll(List<Runnable> tasks) {
+		RuntimeException failure = null;
+		for (Runnable task : tasks) {
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				if (null == failure) {
+					failure = e;
+				} else {
+					failure.addSuppressed(e);
+				}
+			}
+		}
+		if (null != failure) {
+			throw failure;
+		}
+	}
+}
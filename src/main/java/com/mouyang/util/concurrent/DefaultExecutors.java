@@ -0,0 +1,47 @@
+package com.mouyang.util.concurrent;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared Executors used when the caller does not supply one.
+ * <p>
+ * This implementation backs blocking tasks with a cached pool of daemon threads.  On JDK 21 and later it is replaced 
+ * by one that runs each task on its own virtual thread.
+ * </p>
+ * 
+ * @author Matthew
+ *
+ */
+public class DefaultExecutors {
+	
+	private DefaultExecutors() {
+	}
+	
+	/**
+	 * Initialization-on-demand holder, so that no threads are created unless they are used.
+	 */
+	private static class BlockingTasks {
+		private static final ExecutorService INSTANCE = Executors.newCachedThreadPool(new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+			
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "java-utils-blocking-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+	
+	/**
+	 * @return an Executor suited to tasks that spend most of their time waiting, such as remote calls.  It is shared 
+	 * and must not be shut down.
+	 */
+	public static Executor blockingTasks() {
+		return BlockingTasks.INSTANCE;
+	}
+}
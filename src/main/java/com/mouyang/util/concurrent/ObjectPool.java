@@ -0,0 +1,130 @@
+package com.mouyang.util.concurrent;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of reusable objects such as buffers, StringBuilders and parsers.
+ * <p>
+ * Each thread keeps a small cache of released objects so that a borrow followed by a release on the same thread does
+ * not contend with other threads.  Objects that do not fit in the releasing thread's cache are pushed onto a lock-free
+ * stack shared by all threads, and objects that do not fit there either are dropped for the garbage collector.  When
+ * both are empty, a new object is created by the factory.
+ * </p>
+ * <p>
+ * The reset hook is applied to an object when it is released, before it can be borrowed again.  Objects must not be
+ * used after being released.  {@link com.mouyang.util.lang.WithExpression#_withPooled(ObjectPool, Consumer)} pairs
+ * the borrow and release so that this cannot happen by accident.
+ * </p>
+ *
+ * @author Matthew
+ *
+ * @param <T>
+ */
+public class ObjectPool<T> {
+	private static final int DEFAULT_THREAD_LOCAL_CAPACITY = 4;
+	private static final int DEFAULT_SHARED_CAPACITY = 64;
+
+	private final Supplier<T> factory;
+	private final Consumer<? super T> reset;
+	private final int sharedCapacity;
+	private final ThreadLocal<LocalCache> localCaches;
+	private final AtomicReference<Node<T>> sharedTop = new AtomicReference<>();
+	private final AtomicInteger sharedSize = new AtomicInteger();
+
+	/**
+	 * A per-thread stack.  Only ever accessed by its owning thread, so it needs no synchronization.
+	 */
+	private static class LocalCache {
+		private final Object[] objects;
+		private int size;
+
+		private LocalCache(int capacity) {
+			this.objects = new Object[capacity];
+		}
+	}
+
+	/**
+	 * Node of the shared Treiber stack.
+	 */
+	private static class Node<T> {
+		private final T object;
+		private Node<T> next;
+
+		private Node(T object) {
+			this.object = object;
+		}
+	}
+
+	/**
+	 * Creates a pool with no reset hook and default capacities.
+	 */
+	public ObjectPool(Supplier<T> factory) {
+		this(factory, null, DEFAULT_THREAD_LOCAL_CAPACITY, DEFAULT_SHARED_CAPACITY);
+	}
+
+	/**
+	 * @param reset applied to every released object; may be null.
+	 * @param threadLocalCapacity maximum number of idle objects cached per thread.
+	 * @param sharedCapacity maximum number of idle objects in the shared stack.
+	 * @throws IllegalArgumentException if either capacity is negative.
+	 */
+	public ObjectPool(Supplier<T> factory, Consumer<? super T> reset, int threadLocalCapacity, int sharedCapacity) {
+		if (threadLocalCapacity < 0 || sharedCapacity < 0) {
+			throw new IllegalArgumentException("capacities must not be negative");
+		}
+		this.factory = Objects.requireNonNull(factory, "factory");
+		this.reset = reset;
+		this.sharedCapacity = sharedCapacity;
+		this.localCaches = ThreadLocal.withInitial(() -> new LocalCache(threadLocalCapacity));
+	}
+
+	/**
+	 * @return an idle object if one is available, a new object from the factory otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	public T borrow() {
+		LocalCache cache = localCaches.get();
+		if (cache.size > 0) {
+			T object = (T) cache.objects[--cache.size];
+			cache.objects[cache.size] = null;
+			return object;
+		}
+		Node<T> top;
+		while (null != (top = sharedTop.get())) {
+			if (sharedTop.compareAndSet(top, top.next)) {
+				sharedSize.decrementAndGet();
+				return top.object;
+			}
+		}
+		return factory.get();
+	}
+
+	/**
+	 * Resets the object and makes it available to be borrowed again, unless the pool is full.
+	 */
+	public void release(T object) {
+		if (null == object) {
+			return;
+		}
+		if (null != reset) {
+			reset.accept(object);
+		}
+		LocalCache cache = localCaches.get();
+		if (cache.size < cache.objects.length) {
+			cache.objects[cache.size++] = object;
+			return;
+		}
+		if (sharedSize.incrementAndGet() > sharedCapacity) {
+			sharedSize.decrementAndGet();
+			return;
+		}
+		Node<T> node = new Node<>(object);
+		do {
+			node.next = sharedTop.get();
+		} while (!sharedTop.compareAndSet(node.next, node));
+	}
+}
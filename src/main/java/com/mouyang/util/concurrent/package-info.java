@@ -0,0 +1,4 @@
+package com.mouyang.util.concurrent;
+/**
+ * Executors and other building blocks for moving work off latency-critical threads.
+ */
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.mouyang.util.function;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A predicate whose answer arrives later, such as a check made against a remote service.  Composed with
+ * {@link PredicateFactory#allOfAsync(AsyncPredicate...)} and {@link PredicateFactory#anyOfAsync(AsyncPredicate...)}.
+ *
+ * @author Matthew
+ *
+ * @param <T>
+ */
+@FunctionalInterface
+public interface AsyncPredicate<T> {
+
+	/**
+	 * @return a future completing with the result of the test.  Cancelling it should abandon the test if possible.
+	 */
+	CompletableFuture<Boolean> test(T t);
+}
@@ -0,0 +1,269 @@
+package com.mouyang.util.function;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Caches the results of an expensive predicate, such as a regular expression, an access check or a geographic lookup,
+ * for inputs it sees repeatedly.  Built with {@link #builder(Predicate)}, or with defaults by
+ * {@link PredicateFactory#memoize(Predicate)}.
+ * <p>
+ * Results are cached by input, or by a key projected from the input with {@link Builder#keyedBy(Function)}, which
+ * must then determine the result on its own.  Null inputs and keys are cached like any other.  The cache is bounded
+ * either by its number of entries or by the total weight of their inputs, and entries can also expire a fixed time
+ * after they were computed.
+ * </p>
+ * <p>
+ * Eviction follows the CLOCK policy: entries wait in insertion order, an entry that has been hit since it was last
+ * considered gets a second chance at the back of the queue, and the first entry without one is evicted.  This keeps
+ * frequently used entries without the locking that exact LRU would need.  The bound may be exceeded briefly while
+ * several threads insert at once.  Concurrent misses on the same key may each evaluate the predicate, so it should
+ * be free of side effects.
+ * </p>
+ * <blockquote><pre>
+ * MemoizingPredicate&lt;Request&gt; permitted = MemoizingPredicate.builder(acl::permits)
+ *     .keyedBy(request -&gt; request.user() + ":" + request.resource())
+ *     .maximumSize(10_000)
+ *     .expireAfterWrite(5, MINUTES)
+ *     .build();
+ * Predicate&lt;Request&gt; allowed = PredicateFactory.allOf(authenticated, permitted);
+ * </pre></blockquote>
+ *
+ * @author Matthew
+ *
+ * @param <T>
+ */
+public class MemoizingPredicate<T> implements Predicate<T> {
+	private static final long DEFAULT_MAXIMUM_SIZE = 1024;
+
+	/**
+	 * Stands in for null keys, which ConcurrentHashMap does not allow.
+	 */
+	private static final Object NULL_KEY = new Object();
+
+	private final Predicate<? super T> predicate;
+	private final Function<? super T, ?> keyFunction;
+	private final ToIntFunction<? super T> weigher;
+	private final long maximumWeight;
+	private final long ttlNanos;
+	private final ConcurrentHashMap<Object, Entry> entries = new ConcurrentHashMap<>();
+	private final Queue<Object> clock = new ConcurrentLinkedQueue<>();
+	private final AtomicLong weight = new AtomicLong();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	private static class Entry {
+		private final boolean result;
+		private final int weight;
+		private final long expiresAtNanos;
+		private volatile boolean referenced;
+
+		private Entry(boolean result, int weight, long expiresAtNanos) {
+			this.result = result;
+			this.weight = weight;
+			this.expiresAtNanos = expiresAtNanos;
+		}
+	}
+
+	private MemoizingPredicate(Builder<T> builder) {
+		this.predicate = builder.predicate;
+		this.keyFunction = builder.keyFunction;
+		this.weigher = builder.weigher;
+		this.maximumWeight = builder.maximumWeight;
+		this.ttlNanos = builder.ttlNanos;
+	}
+
+	public static <T> Builder<T> builder(Predicate<? super T> predicate) {
+		return new Builder<>(predicate);
+	}
+
+	/**
+	 * @return the cached result for the input's key if there is one that has not expired, the result of the predicate
+	 * otherwise.
+	 */
+	@Override
+	public boolean test(T t) {
+		Object key = keyFunction.apply(t);
+		if (null == key) {
+			key = NULL_KEY;
+		}
+		final long now = (0 == ttlNanos) ? 0 : System.nanoTime();
+		Entry entry = entries.get(key);
+		if (null != entry && (0 == ttlNanos || now - entry.expiresAtNanos < 0)) {
+			if (!entry.referenced) {
+				entry.referenced = true;
+			}
+			hits.increment();
+			return entry.result;
+		}
+		misses.increment();
+		final boolean result = predicate.test(t);
+		final int entryWeight = weigher.applyAsInt(t);
+		if (entryWeight < 0) {
+			throw new IllegalArgumentException("weight must not be negative, was " + entryWeight);
+		}
+		Entry previous = entries.put(key, new Entry(result, entryWeight, now + ttlNanos));
+		if (null == previous) {
+			clock.add(key);
+			weight.addAndGet(entryWeight);
+		} else {
+			weight.addAndGet(entryWeight - previous.weight);
+		}
+		evictWhileOverweight();
+		return result;
+	}
+
+	/**
+	 * Sweeps the clock hand over the queue until the cache is back within its bound.  Every entry passed over has its
+	 * reference bit cleared, so two full sweeps are always enough, even when other threads are hitting entries.
+	 */
+	private void evictWhileOverweight() {
+		int budget = 2 * entries.size() + 1;
+		while (weight.get() > maximumWeight && budget-- > 0) {
+			Object key = clock.poll();
+			if (null == key) {
+				return;
+			}
+			Entry entry = entries.get(key);
+			if (null == entry) {
+				continue;
+			}
+			if (entry.referenced) {
+				entry.referenced = false;
+				clock.add(key);
+			} else if (entries.remove(key, entry)) {
+				weight.addAndGet(-entry.weight);
+				evictions.increment();
+			} else if (entries.containsKey(key)) {
+				// replaced in the meantime, so it keeps its place in the queue
+				clock.add(key);
+			}
+		}
+	}
+
+	/**
+	 * Empties the cache.  Statistics are kept.
+	 */
+	public void invalidateAll() {
+		Object key;
+		while (null != (key = clock.poll())) {
+			Entry entry = entries.remove(key);
+			if (null != entry) {
+				weight.addAndGet(-entry.weight);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of results currently cached, including any that have expired but not been evicted.
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the total weight of the cached entries, which is their number unless a weigher was given.
+	 */
+	public long weight() {
+		return weight.get();
+	}
+
+	/**
+	 * @return the number of tests answered from the cache.
+	 */
+	public long hitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of tests that evaluated the predicate.
+	 */
+	public long missCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return the number of entries removed to keep the cache within its bound.
+	 */
+	public long evictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Configures a {@link MemoizingPredicate}.  By default results are keyed by the input itself, at most 1024 of them
+	 * are cached, and they never expire.
+	 *
+	 * @author Matthew
+	 *
+	 * @param <T>
+	 */
+	public static class Builder<T> {
+		private final Predicate<? super T> predicate;
+		private Function<? super T, ?> keyFunction = Function.identity();
+		private ToIntFunction<? super T> weigher = t -> 1;
+		private long maximumWeight = DEFAULT_MAXIMUM_SIZE;
+		private long ttlNanos;
+
+		private Builder(Predicate<? super T> predicate) {
+			this.predicate = Objects.requireNonNull(predicate, "predicate");
+		}
+
+		/**
+		 * Caches results by a key projected from the input, such as an identifier, rather than by the input itself.
+		 */
+		public Builder<T> keyedBy(Function<? super T, ?> keyFunction) {
+			this.keyFunction = Objects.requireNonNull(keyFunction, "keyFunction");
+			return this;
+		}
+
+		/**
+		 * Caches at most this many results.
+		 *
+		 * @throws IllegalArgumentException if maximumSize is negative.
+		 */
+		public Builder<T> maximumSize(long maximumSize) {
+			return maximumWeight(maximumSize, t -> 1);
+		}
+
+		/**
+		 * Caches results until the total weight of their inputs reaches maximumWeight.  Weights are computed once, when
+		 * a result is cached, and must not be negative.
+		 *
+		 * @throws IllegalArgumentException if maximumWeight is negative.
+		 */
+		public Builder<T> maximumWeight(long maximumWeight, ToIntFunction<? super T> weigher) {
+			if (maximumWeight < 0) {
+				throw new IllegalArgumentException("maximumWeight must not be negative");
+			}
+			this.maximumWeight = maximumWeight;
+			this.weigher = Objects.requireNonNull(weigher, "weigher");
+			return this;
+		}
+
+		/**
+		 * Recomputes a result once this much time has passed since it was computed.
+		 *
+		 * @throws IllegalArgumentException if ttl is not positive.
+		 */
+		public Builder<T> expireAfterWrite(long ttl, TimeUnit unit) {
+			if (ttl <= 0) {
+				throw new IllegalArgumentException("ttl must be positive");
+			}
+			this.ttlNanos = unit.toNanos(ttl);
+			return this;
+		}
+
+		public MemoizingPredicate<T> build() {
+			return new MemoizingPredicate<>(this);
+		}
+	}
+}
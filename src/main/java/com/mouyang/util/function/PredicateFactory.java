@@ -4,16 +4,32 @@ import static com.mouyang.util.VarArgs.nullSafe;
 import static java.util.Arrays.asList;
 import static java.util.stream.Collectors.toList;
 
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BinaryOperator;
+import java.util.function.IntConsumer;
 import java.util.function.Predicate;
 
 import com.mouyang.util.VarArgs;
+import com.mouyang.util.internal.Telemetry;
 
 public class PredicateFactory {
 	
 	@SuppressWarnings("rawtypes")
 	private static final Predicate alwaysTrue = x -> true;
+	
+	/**
+	 * Number of elements parallelFilter evaluates as one task.  A multiple of 64, so that chunks never share a word 
+	 * of the bitmap, and large enough that each task outweighs the cost of scheduling it.
+	 */
+	private static final int FILTER_CHUNK_SIZE = 4096;
 
 	/**
 	 * Null-safe version of Predicate<T>.and(Predicate<T>).  Null inputs will be ignored.
@@ -23,7 +39,7 @@ public class PredicateFactory {
 	 */
 	@SuppressWarnings("unchecked")
 	public static <T> Predicate<T> allOf(Predicate<T>... predicates) {
-		return accumulate((t, u) -> t.and(u), predicates);
+		return accumulate("allOf", (t, u) -> t.and(u), predicates);
 	}
 
 	/**
@@ -34,11 +50,197 @@ public class PredicateFactory {
 	 */
 	@SuppressWarnings("unchecked")
 	public static <T> Predicate<T> anyOf(Predicate<T>... predicates) {
-		return accumulate((t, u) -> t.or(u), predicates);
+		return accumulate("anyOf", (t, u) -> t.or(u), predicates);
+	}
+	
+	/**
+	 * Asynchronous version of {@link #allOf(Predicate...)}.  Null inputs will be ignored.  All of the predicates are 
+	 * started at once, and the result is decided by the first of them to complete false or exceptionally, at which 
+	 * point the others are cancelled.
+	 * @param predicates
+	 * @return predicate that always completes true if no non-null predicates are provided.  predicate that completes 
+	 * true once all of the non-null predicates have completed true otherwise.
+	 */
+	@SafeVarargs
+	// the array is only read by nullSafe, which copies it into a new list
+	@SuppressWarnings("varargs")
+	public static <T> AsyncPredicate<T> allOfAsync(AsyncPredicate<T>... predicates) {
+		return accumulateAsync(false, nullSafe(predicates));
+	}
+	
+	/**
+	 * Asynchronous version of {@link #anyOf(Predicate...)}.  Null inputs will be ignored.  All of the predicates are 
+	 * started at once, and the result is decided by the first of them to complete true or exceptionally, at which 
+	 * point the others are cancelled.
+	 * @param predicates
+	 * @return predicate that always completes true if no non-null predicates are provided.  predicate that completes 
+	 * false once all of the non-null predicates have completed false otherwise.
+	 */
+	@SafeVarargs
+	// as for allOfAsync, nothing is stored into the array or keeps a reference to it
+	@SuppressWarnings("varargs")
+	public static <T> AsyncPredicate<T> anyOfAsync(AsyncPredicate<T>... predicates) {
+		return accumulateAsync(true, nullSafe(predicates));
+	}
+	
+	/**
+	 * @param decisive the result which, from any one predicate, decides the composite.
+	 * @param nonNullPredicates the predicates, without nulls.
+	 */
+	private static <T> AsyncPredicate<T> accumulateAsync(boolean decisive, List<AsyncPredicate<T>> nonNullPredicates) {
+		if (nonNullPredicates.isEmpty()) {
+			return t -> CompletableFuture.completedFuture(true);
+		}
+		return t -> {
+			final int len = nonNullPredicates.size();
+			CompletableFuture<Boolean> composite = new CompletableFuture<>();
+			List<CompletableFuture<Boolean>> clauses = new ArrayList<>(len);
+			AtomicInteger undecided = new AtomicInteger(len);
+			for (AsyncPredicate<T> predicate : nonNullPredicates) {
+				if (composite.isDone()) {
+					break;
+				}
+				CompletableFuture<Boolean> clause;
+				try {
+					clause = Objects.requireNonNull(predicate.test(t), "AsyncPredicate returned null");
+				} catch (RuntimeException e) {
+					clause = new CompletableFuture<>();
+					clause.completeExceptionally(e);
+				}
+				clauses.add(clause);
+				clause.whenComplete((result, failure) -> {
+					if (null != failure) {
+						composite.completeExceptionally(failure);
+					} else if (decisive == result) {
+						composite.complete(decisive);
+					} else if (0 == undecided.decrementAndGet()) {
+						composite.complete(!decisive);
+					}
+				});
+			}
+			// cancelling clauses after the decision, or when the caller cancels the composite
+			composite.whenComplete((result, failure) -> clauses.forEach(clause -> clause.cancel(true)));
+			return composite;
+		};
+	}
+	
+	/**
+	 * Caches the results of an expensive predicate by input, keeping up to 1024 of them.  Use
+	 * {@link MemoizingPredicate#builder(Predicate)} to change the key, bound or expiry.
+	 * @param predicate
+	 * @return predicate that evaluates the given predicate only for inputs it has no cached result for.
+	 */
+	public static <T> MemoizingPredicate<T> memoize(Predicate<? super T> predicate) {
+		return MemoizingPredicate.<T>builder(predicate).build();
+	}
+	
+	/**
+	 * Filters a list in parallel on the common fork-join pool, keeping the order of the elements.
+	 * @see #parallelFilter(Object[], Predicate, ForkJoinPool)
+	 * @return fixed-size list of the elements satisfying the predicate.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> List<T> parallelFilter(List<T> list, Predicate<? super T> predicate) {
+		return Arrays.asList((T[]) parallelFilter(list.toArray(), (Predicate<Object>) predicate, 
+			ForkJoinPool.commonPool()));
+	}
+	
+	/**
+	 * Filters an array in parallel on the common fork-join pool, keeping the order of the elements.
+	 * @see #parallelFilter(Object[], Predicate, ForkJoinPool)
+	 */
+	public static <T> T[] parallelFilter(T[] array, Predicate<? super T> predicate) {
+		return parallelFilter(array, predicate, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Filters an array in parallel, keeping the order of the elements.  The array is divided into chunks of 
+	 * FILTER_CHUNK_SIZE elements.  The predicate is evaluated for each chunk into its own range of a shared bitmap, 
+	 * aligned so that no two chunks write to the same word, along with a count of the elements it kept.  A prefix sum 
+	 * of the counts then gives each chunk its offset in the result, which the chunks fill in parallel.  Nothing is 
+	 * boxed or merged along the way, and the only allocations are the bitmap, the counts and the result.  Small arrays 
+	 * are filtered on the calling thread.
+	 * @param array
+	 * @param predicate must be safe to call from several threads at once.
+	 * @param pool
+	 * @return array of the same component type as the input, holding the elements satisfying the predicate.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T[] parallelFilter(T[] array, Predicate<? super T> predicate, ForkJoinPool pool) {
+		final int len = array.length;
+		final int chunks = (len + FILTER_CHUNK_SIZE - 1) / FILTER_CHUNK_SIZE;
+		final long[] bitmap = new long[(len + 63) >>> 6];
+		final int[] offsets = new int[chunks + 1];
+		IntConsumer evaluate = chunk -> {
+			final int from = chunk * FILTER_CHUNK_SIZE;
+			final int to = Math.min(len, from + FILTER_CHUNK_SIZE);
+			int count = 0;
+			for (int i = from; i < to; i++) {
+				if (predicate.test(array[i])) {
+					bitmap[i >>> 6] |= 1L << i;
+					count++;
+				}
+			}
+			offsets[chunk + 1] = count;
+		};
+		forEachChunk(chunks, evaluate, pool);
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			offsets[chunk + 1] += offsets[chunk];
+		}
+		final T[] result = (T[]) Array.newInstance(array.getClass().getComponentType(), offsets[chunks]);
+		IntConsumer compact = chunk -> {
+			int target = offsets[chunk];
+			final int fromWord = chunk * (FILTER_CHUNK_SIZE >>> 6);
+			final int toWord = Math.min(bitmap.length, fromWord + (FILTER_CHUNK_SIZE >>> 6));
+			for (int word = fromWord; word < toWord; word++) {
+				for (long bits = bitmap[word]; 0 != bits; bits &= bits - 1) {
+					result[target++] = array[(word << 6) + Long.numberOfTrailingZeros(bits)];
+				}
+			}
+		};
+		forEachChunk(chunks, compact, pool);
+		return result;
+	}
+	
+	private static void forEachChunk(int chunks, IntConsumer action, ForkJoinPool pool) {
+		if (chunks < 2) {
+			for (int chunk = 0; chunk < chunks; chunk++) {
+				action.accept(chunk);
+			}
+		} else {
+			pool.invoke(new ChunkAction(0, chunks, action));
+		}
+	}
+	
+	/**
+	 * Splits a range of chunks in half until a single chunk is left, then runs the action on it.
+	 */
+	@SuppressWarnings("serial")
+	private static class ChunkAction extends RecursiveAction {
+		private final int from;
+		private final int to;
+		private final IntConsumer action;
+		
+		ChunkAction(int from, int to, IntConsumer action) {
+			this.from = from;
+			this.to = to;
+			this.action = action;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				action.accept(from);
+			} else {
+				final int middle = (from + to) >>> 1;
+				invokeAll(new ChunkAction(from, middle, action), new ChunkAction(middle, to, action));
+			}
+		}
 	}
 	
 	@SuppressWarnings("unchecked")
-	private static <T> Predicate<T> accumulate(BinaryOperator<Predicate<T>> binaryOperation, Predicate<T>... predicates) {
+	private static <T> Predicate<T> accumulate(String kind, BinaryOperator<Predicate<T>> binaryOperation, 
+			Predicate<T>... predicates) {
 		List<Predicate<T>> nonNullPredicates = nullSafe(predicates);
 		if (nonNullPredicates.isEmpty()) {
 			return alwaysTrue;
@@ -47,6 +249,6 @@ public class PredicateFactory {
 		for (int index = 1; index < nonNullPredicates.size(); index++) {
 			composite = binaryOperation.apply(composite, nonNullPredicates.get(index)); 
 		}
-		return composite;
+		return Telemetry.predicateComposite(composite, kind, nonNullPredicates.size());
 	}
  }
\ No newline at end of file
@@ -0,0 +1,407 @@
+package com.mouyang.util.function;
+
+import static com.mouyang.util.VarArgs.nullSafe;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Matches events against many rules at once, where each rule is the equivalent of an
+ * {@link PredicateFactory#allOf(java.util.function.Predicate...)} of equality and range clauses on named fields.
+ * <p>
+ * Testing every rule in turn costs as much as the number of rules.  Instead, clauses are indexed by field: equality
+ * clauses in a hash table from constant to clause, and range clauses in an interval tree.  Identical clauses are shared
+ * between the rules that use them, so each distinct clause is decided once per event.  Looking an event up in the
+ * indexes yields the clauses it satisfies, and each of those adds one to a counter for every rule containing it.  A
+ * rule matches when its counter reaches its number of clauses.  The cost of matching is then that of the lookups plus
+ * the number of satisfied clauses, rather than the number of rules.
+ * </p>
+ * <p>
+ * Each field is extracted from the event once, however many clauses use it.  Range bounds are inclusive, and compared
+ * with their natural ordering, so values of a field used in ranges must be mutually Comparable.  A null field value
+ * can equal a null constant but is in no range.  A rule without clauses matches every event.
+ * </p>
+ * <blockquote><pre>
+ * RuleSet&lt;Trade&gt; rules = RuleSet.&lt;Trade&gt;builder()
+ *     .field("symbol", Trade::symbol)
+ *     .field("price", Trade::price)
+ *     .rule("cheap-apple", equal("symbol", "AAPL"), between("price", 0, 150))
+ *     .rule("any-apple", equal("symbol", "AAPL"))
+ *     .build();
+ * List&lt;String&gt; matched = rules.match(trade);
+ * </pre></blockquote>
+ * <p>
+ * A built RuleSet is immutable and may be shared between threads.  Counters are kept per thread.
+ * </p>
+ *
+ * @author Matthew
+ *
+ * @param <E> the event type
+ */
+public class RuleSet<E> {
+
+	private final Function<? super E, ?>[] extractors;
+	private final Map<Object, int[]>[] equalityIndexes;
+	private final IntervalTree[] rangeIndexes;
+	private final int[] indexedFields;
+	private final String[] ruleIds;
+	private final int[] clauseCounts;
+	private final int[] unconditional;
+	private final ThreadLocal<Counters> counters;
+
+	/**
+	 * A declarative clause, created by {@link RuleSet#equal(String, Object)} or
+	 * {@link RuleSet#between(String, Comparable, Comparable)}.
+	 */
+	public static final class Clause {
+		private final String field;
+		private final Object value;
+		private final Comparable<?> from;
+		private final Comparable<?> to;
+		private final boolean range;
+
+		private Clause(String field, Object value, Comparable<?> from, Comparable<?> to, boolean range) {
+			this.field = Objects.requireNonNull(field, "field");
+			this.value = value;
+			this.from = from;
+			this.to = to;
+			this.range = range;
+		}
+
+		/**
+		 * Clauses are equal when they test the same field in the same way, which is what lets rules share them.
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Clause)) {
+				return false;
+			}
+			Clause other = (Clause) obj;
+			return range == other.range && field.equals(other.field) && Objects.equals(value, other.value)
+				&& Objects.equals(from, other.from) && Objects.equals(to, other.to);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(field, value, from, to, range);
+		}
+
+		@Override
+		public String toString() {
+			return range ? field + " in [" + from + ", " + to + "]" : field + " == " + value;
+		}
+	}
+
+	/**
+	 * Per-thread rule counters.  A counter is only valid if its stamp is the current generation, so they never need to
+	 * be cleared between events.
+	 */
+	private static class Counters {
+		private final int[] counts;
+		private final int[] stamps;
+		private final Object[] values;
+		private int generation;
+
+		private Counters(int rules, int fields) {
+			this.counts = new int[rules];
+			this.stamps = new int[rules];
+			this.values = new Object[fields];
+		}
+	}
+
+	/**
+	 * A static interval tree: intervals sorted by lower bound, searched as an implicit balanced binary tree in which
+	 * every node also records the highest upper bound below it, so that subtrees that cannot contain the value are
+	 * skipped.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static class IntervalTree {
+		private final Comparable[] froms;
+		private final Comparable[] tos;
+		private final Comparable[] maxTos;
+		private final int[][] rules;
+
+		private IntervalTree(List<Clause> clauses, List<int[]> clauseRules) {
+			final int len = clauses.size();
+			Integer[] order = new Integer[len];
+			for (int i = 0; i < len; i++) {
+				order[i] = i;
+			}
+			Arrays.sort(order, (a, b) -> ((Comparable) clauses.get(a).from).compareTo(clauses.get(b).from));
+			this.froms = new Comparable[len];
+			this.tos = new Comparable[len];
+			this.maxTos = new Comparable[len];
+			this.rules = new int[len][];
+			for (int i = 0; i < len; i++) {
+				Clause clause = clauses.get(order[i]);
+				froms[i] = clause.from;
+				tos[i] = clause.to;
+				rules[i] = clauseRules.get(order[i]);
+			}
+			computeMaxTos(0, len);
+		}
+
+		private Comparable computeMaxTos(int low, int high) {
+			if (low >= high) {
+				return null;
+			}
+			final int middle = (low + high) >>> 1;
+			Comparable max = tos[middle];
+			Comparable left = computeMaxTos(low, middle);
+			Comparable right = computeMaxTos(middle + 1, high);
+			if (null != left && left.compareTo(max) > 0) {
+				max = left;
+			}
+			if (null != right && right.compareTo(max) > 0) {
+				max = right;
+			}
+			return maxTos[middle] = max;
+		}
+
+		void stab(Comparable value, Counters counters, int[] clauseCounts, Consumer<String> matches,
+				String[] ruleIds) {
+			stab(value, 0, froms.length, counters, clauseCounts, matches, ruleIds);
+		}
+
+		private void stab(Comparable value, int low, int high, Counters counters, int[] clauseCounts,
+				Consumer<String> matches, String[] ruleIds) {
+			while (low < high) {
+				final int middle = (low + high) >>> 1;
+				if (value.compareTo(maxTos[middle]) > 0) {
+					return;
+				}
+				stab(value, low, middle, counters, clauseCounts, matches, ruleIds);
+				if (value.compareTo(froms[middle]) < 0) {
+					// everything to the right starts even later
+					return;
+				}
+				if (value.compareTo(tos[middle]) <= 0) {
+					count(rules[middle], counters, clauseCounts, matches, ruleIds);
+				}
+				low = middle + 1;
+			}
+		}
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private RuleSet(Builder<E> builder) {
+		final int fieldCount = builder.fieldNames.size();
+		final int ruleCount = builder.rules.size();
+		this.extractors = builder.extractors.toArray(new Function[fieldCount]);
+		this.equalityIndexes = new Map[fieldCount];
+		this.rangeIndexes = new IntervalTree[fieldCount];
+		this.ruleIds = builder.rules.keySet().toArray(new String[ruleCount]);
+		this.clauseCounts = new int[ruleCount];
+
+		// share identical clauses, remembering which rules use each of them
+		Map<Clause, List<Integer>> sharedClauses = new LinkedHashMap<>();
+		List<Integer> unconditionalRules = new ArrayList<>();
+		int rule = 0;
+		for (Set<Clause> clauses : builder.rules.values()) {
+			clauseCounts[rule] = clauses.size();
+			if (clauses.isEmpty()) {
+				unconditionalRules.add(rule);
+			}
+			for (Clause clause : clauses) {
+				sharedClauses.computeIfAbsent(clause, c -> new ArrayList<>()).add(rule);
+			}
+			rule++;
+		}
+		this.unconditional = toArray(unconditionalRules);
+
+		List<List<Clause>> ranges = new ArrayList<>();
+		List<List<int[]>> rangeRules = new ArrayList<>();
+		for (int i = 0; i < fieldCount; i++) {
+			ranges.add(new ArrayList<>());
+			rangeRules.add(new ArrayList<>());
+		}
+		for (Map.Entry<Clause, List<Integer>> entry : sharedClauses.entrySet()) {
+			Clause clause = entry.getKey();
+			final int field = builder.fieldNames.indexOf(clause.field);
+			if (clause.range) {
+				ranges.get(field).add(clause);
+				rangeRules.get(field).add(toArray(entry.getValue()));
+			} else {
+				if (null == equalityIndexes[field]) {
+					equalityIndexes[field] = new HashMap<>();
+				}
+				equalityIndexes[field].put(clause.value, toArray(entry.getValue()));
+			}
+		}
+		List<Integer> indexed = new ArrayList<>();
+		for (int i = 0; i < fieldCount; i++) {
+			if (!ranges.get(i).isEmpty()) {
+				rangeIndexes[i] = new IntervalTree(ranges.get(i), rangeRules.get(i));
+			}
+			if (null != equalityIndexes[i] || null != rangeIndexes[i]) {
+				indexed.add(i);
+			}
+		}
+		this.indexedFields = toArray(indexed);
+		this.counters = ThreadLocal.withInitial(() -> new Counters(ruleCount, fieldCount));
+	}
+
+	public static <E> Builder<E> builder() {
+		return new Builder<>();
+	}
+
+	/**
+	 * @return a clause satisfied when the field equals the value.
+	 */
+	public static Clause equal(String field, Object value) {
+		return new Clause(field, value, null, null, false);
+	}
+
+	/**
+	 * @return a clause satisfied when the field is between from and to, inclusive.
+	 * @throws IllegalArgumentException if from or to is null, or if from is greater than to.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static <C extends Comparable<? super C>> Clause between(String field, C from, C to) {
+		if (null == from || null == to) {
+			throw new IllegalArgumentException("Range bounds must not be null");
+		}
+		if (((Comparable) from).compareTo(to) > 0) {
+			throw new IllegalArgumentException("Range is empty: [" + from + ", " + to + "]");
+		}
+		return new Clause(field, null, from, to, true);
+	}
+
+	/**
+	 * @return the IDs of the rules matching the event, in no particular order.
+	 */
+	public List<String> match(E event) {
+		List<String> matches = new ArrayList<>();
+		match(event, matches::add);
+		return matches;
+	}
+
+	/**
+	 * Passes the ID of each rule matching the event to the consumer, in no particular order.
+	 */
+	@SuppressWarnings("rawtypes")
+	public void match(E event, Consumer<String> matches) {
+		Counters counters = this.counters.get();
+		if (0 == ++counters.generation) {
+			// the stamps have wrapped around, so old ones could be mistaken for current ones
+			Arrays.fill(counters.stamps, 0);
+			counters.generation = 1;
+		}
+		for (int rule : unconditional) {
+			matches.accept(ruleIds[rule]);
+		}
+		final Object[] values = counters.values;
+		for (int field : indexedFields) {
+			values[field] = extractors[field].apply(event);
+		}
+		try {
+			for (int field : indexedFields) {
+				final Object value = values[field];
+				if (null != equalityIndexes[field]) {
+					int[] rules = equalityIndexes[field].get(value);
+					if (null != rules) {
+						count(rules, counters, clauseCounts, matches, ruleIds);
+					}
+				}
+				if (null != rangeIndexes[field] && null != value) {
+					rangeIndexes[field].stab((Comparable) value, counters, clauseCounts, matches, ruleIds);
+				}
+			}
+		} finally {
+			Arrays.fill(values, null);
+		}
+	}
+
+	/**
+	 * @return the number of rules.
+	 */
+	public int size() {
+		return ruleIds.length;
+	}
+
+	/**
+	 * Counts a satisfied clause towards each of its rules, reporting those that have now had all of their clauses
+	 * satisfied.
+	 */
+	private static void count(int[] rules, Counters counters, int[] clauseCounts, Consumer<String> matches,
+			String[] ruleIds) {
+		final int generation = counters.generation;
+		for (int rule : rules) {
+			int count;
+			if (counters.stamps[rule] != generation) {
+				counters.stamps[rule] = generation;
+				count = counters.counts[rule] = 1;
+			} else {
+				count = ++counters.counts[rule];
+			}
+			if (count == clauseCounts[rule]) {
+				matches.accept(ruleIds[rule]);
+			}
+		}
+	}
+
+	private static int[] toArray(List<Integer> list) {
+		int[] array = new int[list.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = list.get(i);
+		}
+		return array;
+	}
+
+	/**
+	 * Declares the fields, then the rules over them.
+	 *
+	 * @author Matthew
+	 *
+	 * @param <E>
+	 */
+	public static class Builder<E> {
+		private final List<String> fieldNames = new ArrayList<>();
+		private final List<Function<? super E, ?>> extractors = new ArrayList<>();
+		private final Map<String, Set<Clause>> rules = new LinkedHashMap<>();
+
+		private Builder() {
+		}
+
+		/**
+		 * Declares a field, extracted from each event by the given function.
+		 *
+		 * @throws IllegalArgumentException if the field has already been declared.
+		 */
+		public Builder<E> field(String name, Function<? super E, ?> extractor) {
+			if (fieldNames.contains(name)) {
+				throw new IllegalArgumentException("Duplicate field: " + name);
+			}
+			fieldNames.add(Objects.requireNonNull(name, "name"));
+			extractors.add(Objects.requireNonNull(extractor, "extractor"));
+			return this;
+		}
+
+		/**
+		 * Adds a rule that matches events satisfying all of the clauses.  Null clauses are ignored, and so are
+		 * repeated ones.
+		 *
+		 * @throws IllegalArgumentException if the ID has already been used, or if a clause refers to an undeclared field.
+		 */
+		public Builder<E> rule(String id, Clause... clauses) {
+			Objects.requireNonNull(id, "id");
+			if (rules.containsKey(id)) {
+				throw new IllegalArgumentException("Duplicate rule: " + id);
+			}
+			Set<Clause> distinct = new LinkedHashSet<>();
+			for (Clause clause : nullSafe(clauses)) {
+				if (!fieldNames.contains(clause.field)) {
+					throw new IllegalArgumentException("Undeclared field: " + clause.field);
+				}
+				distinct.add(clause);
+			}
+			rules.put(id, distinct);
+			return this;
+		}
+
+		public RuleSet<E> build() {
+			return new RuleSet<>(this);
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package com.mouyang.util.gof;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * A batch version of {@link ChainOfResponsibility}, for resolving many keys through the same tiers, such as a local
+ * cache, a shared cache and a database.  Each handler is given every key still unresolved and answers as many of them
+ * as it can in a single call, so resolving N keys costs one call per tier rather than N.
+ *
+ * A value resolves its key if it satisfies the terminating condition.  Resolved keys leave the batch, and only the
+ * remaining keys are passed on to the next handler.  The walk stops early once every key is resolved.
+ *
+ * As with ChainOfResponsibility, a precondition can be optionally specified in conjunction with a handler, and any
+ * number of handlers can be added before the first resolution, after which the chain can no longer be modified.
+ *
+ * @author Matthew
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class BatchChainOfResponsibility<K, V> {
+	private HandlerListState<Handler> handlers = HandlerListState.modifiable();
+	private final Predicate<V> terminatingCondition;
+
+	private class Handler {
+		private final BooleanSupplier precondition;
+		private final Function<Collection<K>, Map<K, V>> resolver;
+
+		public Handler(BooleanSupplier precondition, Function<Collection<K>, Map<K, V>> resolver) {
+			this.precondition = precondition;
+			this.resolver = resolver;
+		}
+
+		public BooleanSupplier getPrecondition() {
+			return precondition;
+		}
+
+		public Function<Collection<K>, Map<K, V>> getResolver() {
+			return resolver;
+		}
+	}
+
+	/**
+	 * Default implementation accepts any value that is not null.
+	 */
+	public BatchChainOfResponsibility() {
+		this(v -> (null != v));
+	}
+
+	/**
+	 * Allows for specification of a terminating condition.  This will override the default implementation; therefore,
+	 * if that behaviour is still desired, it must be accounted for in the terminating condition.
+	 */
+	public BatchChainOfResponsibility(Predicate<V> terminatingCondition) {
+		this.terminatingCondition = terminatingCondition;
+	}
+
+	/**
+	 * @param resolver given an unmodifiable snapshot of the unresolved keys, which it may keep, returns the values it
+	 * found for any of them.  Keys it has no value for can be left out.  A null map is treated as empty, and entries
+	 * for keys that were not asked for are ignored.
+	 */
+	public void add(Function<Collection<K>, Map<K, V>> resolver) {
+		add(() -> true, resolver);
+	}
+
+	public void add(BooleanSupplier precondition, Function<Collection<K>, Map<K, V>> resolver) {
+		this.handlers.add(new Handler(precondition, resolver));
+	}
+
+	/**
+	 * Walks the keys through the handlers until every key is resolved or there are no handlers left.
+	 *
+	 * @return the resolved keys and their values, in the iteration order of the keys given.  Keys that no handler
+	 * resolved are absent.
+	 */
+	public Map<K, V> resolveAll(Collection<K> keys) {
+		List<Handler> handlerList = (this.handlers = this.handlers.frozenList()).get();
+		Set<K> unresolved = new LinkedHashSet<>(keys);
+		Map<K, V> resolved = new HashMap<>();
+		for (Handler handler : handlerList) {
+			if (unresolved.isEmpty()) {
+				break;
+			}
+			if (!handler.getPrecondition().getAsBoolean()) {
+				continue;
+			}
+			// a copy, so that the handler's keys do not change under it as they are resolved
+			Map<K, V> values = handler.getResolver().apply(Collections.unmodifiableList(new ArrayList<>(unresolved)));
+			if (null == values) {
+				continue;
+			}
+			for (Map.Entry<K, V> entry : values.entrySet()) {
+				if (unresolved.contains(entry.getKey()) && terminatingCondition.test(entry.getValue())) {
+					unresolved.remove(entry.getKey());
+					resolved.put(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+		Map<K, V> ordered = new LinkedHashMap<>();
+		for (K key : keys) {
+			if (resolved.containsKey(key)) {
+				ordered.put(key, resolved.get(key));
+			}
+		}
+		return ordered;
+	}
+
+	/**
+	 * Resolves the keys, then passes each resolved key and value to the consumer.
+	 */
+	public void consumeAll(Collection<K> keys, BiConsumer<K, V> consumer) {
+		resolveAll(keys).forEach(consumer);
+	}
+}
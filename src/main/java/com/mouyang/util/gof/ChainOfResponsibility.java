@@ -6,6 +6,8 @@ import java.util.*;
 import java.util.function.*;
 import java.util.stream.Stream;
 
+import com.mouyang.util.internal.Telemetry;
+
 /**
  * This implementation of the Chain Of Responsibility pattern will allow addition of any number of Suppliers before any 
  * operation that iterates through the Suppliers.
@@ -14,77 +16,23 @@ import java.util.stream.Stream;
  * Supplier does not get applied.  Preconditions are not necessary; equivalent behaviour can be achieved in a Supplier 
  * by returning a value that does not satisfy the terminating condition.  They are provided to simplify the Supplier.
  * 
+ * A Supplier backed by an unreliable tier can also be guarded by a {@link CircuitBreaker}.  While the breaker is open, 
+ * the Supplier is skipped as if its precondition were not satisfied.  Exceptions thrown by a guarded Supplier are 
+ * recorded by the breaker and then propagate, as they would from any other Supplier.
+ * 
  * @author Matthew
  *
  * @param <T>
  */
 public class ChainOfResponsibility<T> {
-	private HandlerListState handlers = new ModifiableHandlerListState();
-	private final Predicate<T> terminatingCondition;
-	
 	/**
-	 * This class implements a subset of the List methods needed by this class.
-	 * 
-	 * As an implemetation note, this was implemented as an abstract class instead of an interface in order to prevent 
-	 * exposing this class externally.  Java 8 does not have a concept of private interfaces.
+	 * Returned by a guarded Supplier that was refused by its breaker, so that it is skipped regardless of the 
+	 * terminating condition.
 	 */
-	private abstract class HandlerListState {
-		private final List<Handler> handlers;
-		
-		/**
-		 * @return A list that cannot be modified, an in particular appended to.
-		 */
-		abstract HandlerListState frozenList();
-		
-		private HandlerListState(List<Handler> handlers) {
-			this.handlers = handlers;
-		}
-		
-		void add(Handler t) {
-			handlers.add(t);
-		}
-		
-		/**
-		 * Returns a list of the suppliers without changing the object state.
-		 */
-		List<Handler> get() {
-			return handlers;
-		}
-	}
+	private static final Object SKIPPED = new Object();
 	
-	private class ModifiableHandlerListState extends HandlerListState {
-		/**
-		 * Start with an empty list.
-		 */
-		public ModifiableHandlerListState() {
-			super(new ArrayList<>());
-		}
-		
-		/**
-		 * Transitions to an unmodifiable state.
-		 */
-		HandlerListState frozenList() {
-			return (ChainOfResponsibility.this).new UnmodifiableHandlerListState(get());
-		}
-	}
-
-	private class UnmodifiableHandlerListState extends HandlerListState {
-		/**
-		 * Internally implemented with Collections.unmodifiableList, this will prevent any further modifications.  
-		 * Calling add in this state will result in an UnsupportedOperationException because the object itself returned 
-		 * by unmodifiableList will throw that exception. 
-		 */
-		UnmodifiableHandlerListState(List<Handler> suppliers) {
-			super(Collections.unmodifiableList(suppliers));
-		}
-		
-		/**
-		 * As this is a terminating state, this implementation will return itself.
-		 */
-		HandlerListState frozenList() {
-			return this;
-		}
-	}
+	private HandlerListState<Handler> handlers = HandlerListState.modifiable();
+	private final Predicate<T> terminatingCondition;
 	
 	private class Handler {
 		private final BooleanSupplier precondition;
@@ -136,6 +84,49 @@ public class ChainOfResponsibility<T> {
 		this.handlers.add(new Handler(precondition, supplier));
 	}
 	
+	/**
+	 * The supplier is skipped while the breaker refuses it.  Anything it throws is recorded by the breaker as a failure 
+	 * and then propagates to the caller, so a broken tier is not mistaken for one that had no answer.
+	 */
+	public void add(CircuitBreaker circuitBreaker, Supplier<T> supplier) {
+		add(() -> true, circuitBreaker, supplier);
+	}
+	
+	/**
+	 * The breaker is only asked for a permit once the precondition is satisfied.  Exceptions are handled as by 
+	 * {@link #add(CircuitBreaker, Supplier)}.
+	 */
+	public void add(BooleanSupplier precondition, CircuitBreaker circuitBreaker, Supplier<T> supplier) {
+		this.handlers.add(new Handler(precondition, guarded(circuitBreaker, supplier)));
+	}
+	
+	/**
+	 * Times the supplier and reports the outcome to the breaker, whatever it throws, so that a permit is never lost.
+	 */
+	@SuppressWarnings("unchecked")
+	private Supplier<T> guarded(CircuitBreaker circuitBreaker, Supplier<T> supplier) {
+		return () -> {
+			final CircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+			if (null == permit) {
+				return (T) SKIPPED;
+			}
+			final long start = System.nanoTime();
+			boolean succeeded = false;
+			try {
+				final T t = supplier.get();
+				succeeded = true;
+				return t;
+			} finally {
+				final long duration = System.nanoTime() - start;
+				if (succeeded) {
+					permit.onSuccess(duration);
+				} else {
+					permit.onFailure(duration);
+				}
+			}
+		};
+	}
+	
 	/* Separate the evaluation of the precondition and the supplier.  This allows for skipping evaluation of Suppliers 
 	 * that do not satisfy their precondition.
 	 */
@@ -143,11 +134,29 @@ public class ChainOfResponsibility<T> {
 		return (this.handlers = this.handlers.frozenList()).get().stream()
 			.filter(h -> h.getPrecondition().getAsBoolean())
 			.map(h -> h.getSupplier().get())
-			.filter(t -> terminatingCondition.test(t));
+			.filter(t -> SKIPPED != t && terminatingCondition.test(t));
 	}
 	
+	/**
+	 * Walks the handlers in order, stopping at the first one that answers.
+	 */
 	public Optional<T> findFirst() {
-		return filteredSuppliers().findFirst();
+		final Object walk = Telemetry.chainWalkStart();
+		final List<Handler> handlerList = (this.handlers = this.handlers.frozenList()).get();
+		final int len = handlerList.size();
+		for (int index = 0; index < len; index++) {
+			Handler h = handlerList.get(index);
+			if (!h.getPrecondition().getAsBoolean()) {
+				continue;
+			}
+			T t = h.getSupplier().get();
+			if (SKIPPED != t && terminatingCondition.test(t)) {
+				Telemetry.chainWalkEnd(walk, ChainOfResponsibility.class, index, len);
+				return Optional.of(t);
+			}
+		}
+		Telemetry.chainWalkEnd(walk, ChainOfResponsibility.class, -1, len);
+		return Optional.empty();
 	}
 	
 	public List<T> findAll() {
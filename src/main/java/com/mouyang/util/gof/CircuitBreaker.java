@@ -0,0 +1,330 @@
+package com.mouyang.util.gof;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the health of a handler, so that a {@link ChainOfResponsibility} can skip a degraded tier instead of waiting
+ * on it for every call.  See {@link ChainOfResponsibility#add(CircuitBreaker, java.util.function.Supplier)}.
+ * <p>
+ * Calls are recorded in a sliding window of time made of a ring of buckets.  The breaker is
+ * </p>
+ * <ol>
+ * <li>CLOSED - calls are permitted.  Once the window holds enough calls, the breaker opens if the proportion of them
+ * that failed, or that took longer than the slow call threshold, reaches its limit.</li>
+ * <li>OPEN - calls are refused until the open duration has passed.</li>
+ * <li>HALF_OPEN - a limited number of probe calls are permitted.  The breaker closes if all of them succeed quickly,
+ * and opens again as soon as one of them does not.</li>
+ * </ol>
+ * <p>
+ * Recording is lock-free: each bucket is a few slots of an AtomicLongArray, claimed for its slice of time by a
+ * compare-and-set on its epoch, and each change of state swaps in a new phase with a compare-and-set.  A call recorded at the instant its bucket is recycled may be lost, which only makes
+ * the rates approximate.  Slow calls stand in for timeouts, since a synchronous handler cannot be interrupted; a
+ * handler that applies its own timeout should let the exception propagate so that it counts as a failure.
+ * </p>
+ * <blockquote><pre>
+ * CircuitBreaker breaker = CircuitBreaker.builder()
+ *     .failureRateThreshold(0.5)
+ *     .slowCallThreshold(200, MILLISECONDS)
+ *     .openDuration(30, SECONDS)
+ *     .build();
+ * chain.add(localCache::get);
+ * chain.add(breaker, () -&gt; sharedCache.get(key));
+ * chain.add(() -&gt; database.load(key));
+ * </pre></blockquote>
+ *
+ * @author Matthew
+ *
+ */
+public class CircuitBreaker {
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private static final int EPOCH = 0;
+	private static final int CALLS = 1;
+	private static final int FAILURES = 2;
+	private static final int SLOW_CALLS = 3;
+	private static final int SLOTS_PER_BUCKET = 4;
+
+	private final double failureRateThreshold;
+	private final double slowCallRateThreshold;
+	private final long slowCallNanos;
+	private final long openNanos;
+	private final int minimumCalls;
+	private final int halfOpenProbes;
+	private final long bucketNanos;
+	private final int bucketCount;
+	private final LongSupplier clock;
+
+	private final AtomicLongArray buckets;
+	private final AtomicReference<Phase> phase;
+
+	/**
+	 * A period the breaker spends in one state.  A phase is published whole, so that a half open phase is never seen
+	 * before its probe counters are zero, nor an open one before its opening time is set.
+	 */
+	private final class Phase {
+		private final State state;
+		private final long openedAt;
+		private final AtomicInteger probesPermitted = new AtomicInteger();
+		private final AtomicInteger probesSucceeded = new AtomicInteger();
+		private final Permit permit = new Permit(this);
+
+		private Phase(State state, long openedAt) {
+			this.state = state;
+			this.openedAt = openedAt;
+		}
+	}
+
+	/**
+	 * Granted for a call by {@link CircuitBreaker#tryAcquire()}, to report the outcome of that call through.  The
+	 * outcome only counts towards the phase the permit was granted in, so a call permitted while closed does not count
+	 * as a probe if it finishes after the breaker opened.
+	 *
+	 * @author Matthew
+	 *
+	 */
+	public final class Permit {
+		private final Phase granted;
+
+		private Permit(Phase granted) {
+			this.granted = granted;
+		}
+
+		/**
+		 * Records a call that returned, which still counts against the breaker if it was slow.
+		 */
+		public void onSuccess(long durationNanos) {
+			record(granted, false, durationNanos >= slowCallNanos);
+		}
+
+		/**
+		 * Records a call that threw.
+		 */
+		public void onFailure(long durationNanos) {
+			record(granted, true, durationNanos >= slowCallNanos);
+		}
+	}
+
+	private CircuitBreaker(Builder builder) {
+		this.failureRateThreshold = builder.failureRateThreshold;
+		this.slowCallRateThreshold = builder.slowCallRateThreshold;
+		this.slowCallNanos = builder.slowCallNanos;
+		this.openNanos = builder.openNanos;
+		this.minimumCalls = builder.minimumCalls;
+		this.halfOpenProbes = builder.halfOpenProbes;
+		this.bucketCount = builder.bucketCount;
+		this.bucketNanos = Math.max(1, builder.windowNanos / builder.bucketCount);
+		this.clock = builder.clock;
+		this.buckets = new AtomicLongArray(bucketCount * SLOTS_PER_BUCKET);
+		clearWindow();
+		this.phase = new AtomicReference<>(new Phase(State.CLOSED, 0));
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Asks to make a call.  The outcome of every permitted call must be reported through the permit.
+	 *
+	 * @return null if the call should be skipped.
+	 */
+	public Permit tryAcquire() {
+		while (true) {
+			final Phase current = phase.get();
+			switch (current.state) {
+			case CLOSED:
+				return current.permit;
+			case OPEN:
+				if (clock.getAsLong() - current.openedAt < openNanos) {
+					return null;
+				}
+				phase.compareAndSet(current, new Phase(State.HALF_OPEN, current.openedAt));
+				break;
+			default:
+				return current.probesPermitted.incrementAndGet() <= halfOpenProbes ? current.permit : null;
+			}
+		}
+	}
+
+	public State getState() {
+		return phase.get().state;
+	}
+
+	private void record(Phase granted, boolean failed, boolean slow) {
+		final long now = clock.getAsLong();
+		if (State.HALF_OPEN == granted.state) {
+			// a probe of a phase that has already ended decides nothing, which the compare-and-sets take care of
+			if (failed || slow) {
+				phase.compareAndSet(granted, new Phase(State.OPEN, now));
+			} else if (granted.probesSucceeded.incrementAndGet() == halfOpenProbes) {
+				// the failures that opened the breaker are forgotten
+				clearWindow();
+				phase.compareAndSet(granted, new Phase(State.CLOSED, 0));
+			}
+			return;
+		}
+		if (phase.get() != granted) {
+			// permitted before the breaker opened, and so no longer relevant
+			return;
+		}
+		final long epoch = Math.floorDiv(now, bucketNanos);
+		final int base = (int) Math.floorMod(epoch, (long) bucketCount) * SLOTS_PER_BUCKET;
+		long bucketEpoch = buckets.get(base + EPOCH);
+		if (bucketEpoch != epoch && buckets.compareAndSet(base + EPOCH, bucketEpoch, epoch)) {
+			buckets.set(base + CALLS, 0);
+			buckets.set(base + FAILURES, 0);
+			buckets.set(base + SLOW_CALLS, 0);
+		}
+		buckets.incrementAndGet(base + CALLS);
+		if (failed) {
+			buckets.incrementAndGet(base + FAILURES);
+		}
+		if (slow) {
+			buckets.incrementAndGet(base + SLOW_CALLS);
+		}
+		if (failed || slow) {
+			evaluate(granted, epoch, now);
+		}
+	}
+
+	/**
+	 * Opens the breaker if the rates over the buckets still inside the window have reached their thresholds.  Only
+	 * called after a bad call, since a good one cannot push a rate up.
+	 */
+	private void evaluate(Phase closed, long epoch, long now) {
+		long calls = 0;
+		long failures = 0;
+		long slowCalls = 0;
+		for (int i = 0; i < bucketCount; i++) {
+			final int base = i * SLOTS_PER_BUCKET;
+			if (buckets.get(base + EPOCH) > epoch - bucketCount) {
+				calls += buckets.get(base + CALLS);
+				failures += buckets.get(base + FAILURES);
+				slowCalls += buckets.get(base + SLOW_CALLS);
+			}
+		}
+		if (calls >= minimumCalls
+				&& (failures >= failureRateThreshold * calls || slowCalls >= slowCallRateThreshold * calls)) {
+			phase.compareAndSet(closed, new Phase(State.OPEN, now));
+		}
+	}
+
+	private void clearWindow() {
+		for (int i = 0; i < bucketCount; i++) {
+			buckets.set(i * SLOTS_PER_BUCKET + EPOCH, Long.MIN_VALUE);
+		}
+	}
+
+	/**
+	 * By default, the breaker opens when half of at least 10 calls over the last 10 seconds failed or were slower
+	 * than 1 second, stays open for 30 seconds, and then closes after 3 successful probes.
+	 *
+	 * @author Matthew
+	 *
+	 */
+	public static class Builder {
+		private double failureRateThreshold = 0.5;
+		private double slowCallRateThreshold = 0.5;
+		private long slowCallNanos = TimeUnit.SECONDS.toNanos(1);
+		private long openNanos = TimeUnit.SECONDS.toNanos(30);
+		private int minimumCalls = 10;
+		private int halfOpenProbes = 3;
+		private long windowNanos = TimeUnit.SECONDS.toNanos(10);
+		private int bucketCount = 10;
+		private LongSupplier clock = System::nanoTime;
+
+		private Builder() {
+		}
+
+		/**
+		 * @throws IllegalArgumentException if the rate is not in (0, 1].
+		 */
+		public Builder failureRateThreshold(double rate) {
+			this.failureRateThreshold = checkRate(rate);
+			return this;
+		}
+
+		/**
+		 * @throws IllegalArgumentException if the rate is not in (0, 1].
+		 */
+		public Builder slowCallRateThreshold(double rate) {
+			this.slowCallRateThreshold = checkRate(rate);
+			return this;
+		}
+
+		/**
+		 * Calls taking at least this long count as slow.
+		 */
+		public Builder slowCallThreshold(long duration, TimeUnit unit) {
+			this.slowCallNanos = unit.toNanos(checkPositive(duration));
+			return this;
+		}
+
+		/**
+		 * How long the breaker stays open before probing.
+		 */
+		public Builder openDuration(long duration, TimeUnit unit) {
+			this.openNanos = unit.toNanos(checkPositive(duration));
+			return this;
+		}
+
+		/**
+		 * The number of calls the window must hold before the rates are considered.
+		 */
+		public Builder minimumCalls(int minimumCalls) {
+			this.minimumCalls = (int) checkPositive(minimumCalls);
+			return this;
+		}
+
+		/**
+		 * The number of calls permitted while half open, all of which must succeed for the breaker to close.
+		 */
+		public Builder halfOpenProbes(int probes) {
+			this.halfOpenProbes = (int) checkPositive(probes);
+			return this;
+		}
+
+		/**
+		 * The length of the sliding window, and the number of buckets it is divided into.  More buckets make the
+		 * window slide more smoothly.
+		 */
+		public Builder window(long duration, TimeUnit unit, int buckets) {
+			this.windowNanos = unit.toNanos(checkPositive(duration));
+			this.bucketCount = (int) checkPositive(buckets);
+			return this;
+		}
+
+		/**
+		 * Replaces System.nanoTime, for tests.
+		 */
+		Builder clock(LongSupplier clock) {
+			this.clock = clock;
+			return this;
+		}
+
+		public CircuitBreaker build() {
+			return new CircuitBreaker(this);
+		}
+
+		private static double checkRate(double rate) {
+			if (!(rate > 0 && rate <= 1)) {
+				throw new IllegalArgumentException("rate must be in (0, 1], was " + rate);
+			}
+			return rate;
+		}
+
+		private static long checkPositive(long value) {
+			if (value <= 0) {
+				throw new IllegalArgumentException("must be positive, was " + value);
+			}
+			return value;
+		}
+	}
+}
@@ -0,0 +1,314 @@
+package com.mouyang.util.gof;
+
+import static java.lang.String.format;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link EnumVisitor} keyed on combinations of enum values rather than single values, for dispatching on a set of
+ * flags.
+ * <p>
+ * A combination is encoded as a bitmask of ordinals, so only enums with at most 64 values are supported.  A set that
+ * was not declared falls back to the most specific declared combination it contains, i.e. the one with the most
+ * values; between combinations of the same size, the one declared first wins.  Declaring a handler for the empty
+ * combination therefore gives a default for every set.
+ * </p>
+ * <p>
+ * For enums of up to {@value #DENSE_LIMIT} values, every possible set is resolved when the visitor is built, and a
+ * visit is a single array access.  For larger enums the declared combinations are placed in a perfect hash table, so
+ * that an exact match is a multiplication, a shift and a comparison; a set that was not declared is checked against
+ * the declared combinations, most specific first.  The table is at most {@value #MAX_LOAD_INVERSE} times the number
+ * of combinations, and when no perfect hash fits in that, the combinations are binary searched instead.
+ * </p>
+ * <blockquote><pre>
+ * EnumSetVisitor&lt;Flag, Runnable&gt; visitor = EnumSetVisitor.&lt;Flag, Runnable&gt;builder(Flag.class)
+ *     .addHandler(this::plain)
+ *     .addHandler(this::bold, Flag.BOLD)
+ *     .addHandler(this::boldItalic, Flag.BOLD, Flag.ITALIC)
+ *     .expect(Flag.BOLD, Flag.ITALIC, Flag.UNDERLINE)
+ *     .build();
+ * visitor.visit(EnumSet.of(Flag.BOLD, Flag.UNDERLINE)).run(); // bold
+ * </pre></blockquote>
+ *
+ * @author Matthew
+ *
+ * @param <E>
+ * @param <H>
+ */
+public class EnumSetVisitor<E extends Enum<E>, H> {
+
+	/**
+	 * The largest number of enum values for which every possible set is resolved up front.
+	 */
+	static final int DENSE_LIMIT = 12;
+
+	/**
+	 * The largest ratio of perfect hash table slots to combinations, and the number of multipliers tried per size.
+	 */
+	static final int MAX_LOAD_INVERSE = 8;
+	private static final int ATTEMPTS_PER_SIZE = 32;
+
+	private static final int NONE = -1;
+
+	/**
+	 * The declared combinations and their handlers, most specific first.
+	 */
+	private final long[] combinations;
+	private final Object[] handlers;
+
+	/**
+	 * The bits of the enum's values, outside of which a mask is invalid.
+	 */
+	private final long universe;
+
+	/**
+	 * For small enums, the index of the combination that every possible mask resolves to.
+	 */
+	private final int[] dense;
+
+	/**
+	 * For large enums, the perfect hash table of declared combinations: index + 1 of the combination, 0 if empty.
+	 */
+	private final int[] slots;
+	private final long multiplier;
+	private final int shift;
+
+	/**
+	 * For large enums without a perfect hash, the combinations in ascending order and their indexes.
+	 */
+	private final long[] sorted;
+	private final int[] sortedIndexes;
+
+	private EnumSetVisitor(int enumSize, long[] combinations, Object[] handlers) {
+		this.combinations = combinations;
+		this.handlers = handlers;
+		this.universe = (Long.SIZE == enumSize) ? -1L : (1L << enumSize) - 1;
+		int[] table = null;
+		long candidate = 0;
+		int bits = 0;
+		if (enumSize <= DENSE_LIMIT) {
+			this.dense = new int[1 << enumSize];
+			for (int mask = 0; mask < dense.length; mask++) {
+				dense[mask] = scan(mask);
+			}
+		} else {
+			this.dense = null;
+			SplittableRandom random = new SplittableRandom(enumSize);
+			final int minBits = 64 - Long.numberOfLeadingZeros(Math.max(1, combinations.length * 2 - 1));
+			final int maxBits = 64 - Long.numberOfLeadingZeros(Math.max(1, combinations.length * MAX_LOAD_INVERSE - 1));
+			search:
+			for (bits = minBits; bits <= maxBits; bits++) {
+				table = new int[1 << bits];
+				for (int attempt = 0; attempt < ATTEMPTS_PER_SIZE; attempt++) {
+					// odd multipliers, so that no bit of the mask is lost
+					candidate = random.nextLong() | 1L;
+					if (place(table, candidate, 64 - bits)) {
+						break search;
+					}
+					Arrays.fill(table, 0);
+				}
+				table = null;
+			}
+		}
+		this.slots = table;
+		this.multiplier = candidate;
+		this.shift = 64 - bits;
+		if (null == dense && null == table) {
+			Integer[] order = new Integer[combinations.length];
+			for (int i = 0; i < order.length; i++) {
+				order[i] = i;
+			}
+			Arrays.sort(order, Comparator.comparingLong(i -> combinations[i]));
+			this.sorted = new long[order.length];
+			this.sortedIndexes = new int[order.length];
+			for (int i = 0; i < order.length; i++) {
+				sorted[i] = combinations[order[i]];
+				sortedIndexes[i] = order[i];
+			}
+		} else {
+			this.sorted = null;
+			this.sortedIndexes = null;
+		}
+	}
+
+	public static <E extends Enum<E>, H> EnumSetVisitorBuilder<E, H> builder(Class<E> enumClass) {
+		return new EnumSetVisitorBuilder<>(enumClass);
+	}
+
+	/**
+	 * @return the bitmask of the values, bit n standing for the value with ordinal n.
+	 */
+	public static <E extends Enum<E>> long mask(Collection<E> values) {
+		long mask = 0;
+		for (E e : values) {
+			mask |= 1L << e.ordinal();
+		}
+		return mask;
+	}
+
+	/**
+	 * @return the handler of the most specific declared combination contained in the set, null if there is none.
+	 */
+	public H visit(Set<E> set) {
+		return visit(mask(set));
+	}
+
+	/**
+	 * @param mask a set of values encoded by {@link #mask(Collection)}.
+	 * @return the handler of the most specific declared combination contained in the set, null if there is none.
+	 * @throws IllegalArgumentException if the mask has bits beyond the values of the enum.
+	 */
+	@SuppressWarnings("unchecked")
+	public H visit(long mask) {
+		if (0 != (mask & ~universe)) {
+			throw new IllegalArgumentException(format("mask %x has bits beyond the values of the enum", mask));
+		}
+		final int index;
+		if (null != dense) {
+			index = dense[(int) mask];
+		} else {
+			final int exact = exact(mask);
+			index = (NONE != exact) ? exact : scan(mask);
+		}
+		return NONE == index ? null : (H) handlers[index];
+	}
+
+	/**
+	 * @return the index of the combination equal to the mask, NONE if it was not declared.
+	 */
+	private int exact(long mask) {
+		if (null != slots) {
+			final int slot = slots[(int) ((mask * multiplier) >>> shift)] - 1;
+			return (slot >= 0 && combinations[slot] == mask) ? slot : NONE;
+		}
+		final int position = Arrays.binarySearch(sorted, mask);
+		return position >= 0 ? sortedIndexes[position] : NONE;
+	}
+
+	/**
+	 * @return true if the combinations are placed in a perfect hash table, false if they are binary searched.
+	 */
+	boolean isPerfectlyHashed() {
+		return null != slots;
+	}
+
+	/**
+	 * @return the index of the first combination contained in the mask, which is the most specific.
+	 */
+	private int scan(long mask) {
+		for (int i = 0; i < combinations.length; i++) {
+			if ((mask & combinations[i]) == combinations[i]) {
+				return i;
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * @return false if two combinations collide under the multiplier.
+	 */
+	private boolean place(int[] table, long candidate, int tableShift) {
+		for (int i = 0; i < combinations.length; i++) {
+			final int slot = (int) ((combinations[i] * candidate) >>> tableShift);
+			if (0 != table[slot]) {
+				return false;
+			}
+			table[slot] = i + 1;
+		}
+		return true;
+	}
+
+	/**
+	 * Stores up handlers for combinations, and verifies that every expected combination resolves to one before
+	 * creating an EnumSetVisitor.
+	 *
+	 * @author Matthew
+	 *
+	 * @param <E>
+	 * @param <H>
+	 */
+	public static class EnumSetVisitorBuilder<E extends Enum<E>, H> {
+		private final Class<E> enumClass;
+		private final int enumSize;
+		// insertion order is kept when a handler is replaced, so ties keep their declaration order
+		private final Map<Long, H> handlers = new LinkedHashMap<>();
+		private final Set<Long> expected = new LinkedHashSet<>();
+
+		private EnumSetVisitorBuilder(Class<E> enumClass) {
+			this.enumClass = enumClass;
+			this.enumSize = enumClass.getEnumConstants().length;
+			if (enumSize > Long.SIZE) {
+				throw new IllegalArgumentException(format("'%s' has %d values, more than fit in a long",
+					enumClass.getName(), enumSize));
+			}
+		}
+
+		/**
+		 * Declares the handler for the combination of values, replacing any previous one.  No values declares the
+		 * handler for the empty combination, which every set falls back to.
+		 */
+		@SafeVarargs
+		// the list view is only read to compute the mask, and is not kept
+		@SuppressWarnings("varargs")
+		public final EnumSetVisitorBuilder<E, H> addHandler(H h, E... combination) {
+			return addHandler(h, Arrays.asList(combination));
+		}
+
+		public EnumSetVisitorBuilder<E, H> addHandler(H h, Collection<E> combination) {
+			handlers.put(mask(combination), h);
+			return this;
+		}
+
+		/**
+		 * Declares a combination that must resolve to a handler, either its own or that of a combination it contains.
+		 */
+		@SafeVarargs
+		// only the mask of the combination is kept, as for addHandler
+		@SuppressWarnings("varargs")
+		public final EnumSetVisitorBuilder<E, H> expect(E... combination) {
+			return expect(Arrays.asList(combination));
+		}
+
+		public EnumSetVisitorBuilder<E, H> expect(Collection<E> combination) {
+			expected.add(mask(combination));
+			return this;
+		}
+
+		public EnumSetVisitor<E, H> build() {
+			final int size = handlers.size();
+			List<Map.Entry<Long, H>> entries = new ArrayList<>(handlers.entrySet());
+			// stable, so that combinations of the same size keep their declaration order
+			entries.sort(Comparator.comparingInt((Map.Entry<Long, H> entry) -> Long.bitCount(entry.getKey())).reversed());
+			long[] combinations = new long[size];
+			Object[] handlerArray = new Object[size];
+			for (int i = 0; i < size; i++) {
+				combinations[i] = entries.get(i).getKey();
+				handlerArray[i] = entries.get(i).getValue();
+			}
+			EnumSetVisitor<E, H> visitor = new EnumSetVisitor<>(enumSize, combinations, handlerArray);
+			List<Long> unhandled = expected.stream()
+				.filter(mask -> NONE == visitor.scan(mask))
+				.collect(Collectors.toList());
+			if (!unhandled.isEmpty()) {
+				throw new RuntimeException(format("add handlers for the following combinations ('%s')",
+					unhandled.stream()
+						.map(this::names)
+						.collect(Collectors.joining(","))
+				));
+			}
+			return visitor;
+		}
+
+		private String names(long mask) {
+			E[] values = enumClass.getEnumConstants();
+			StringJoiner names = new StringJoiner("+", "[", "]");
+			for (int i = 0; i < values.length; i++) {
+				if (0 != (mask & (1L << i))) {
+					names.add(values[i].name());
+				}
+			}
+			return names.toString();
+		}
+	}
+}
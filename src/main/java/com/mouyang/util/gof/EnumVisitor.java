@@ -11,6 +11,8 @@ import java.util.*;
 import java.util.function.*;
 import java.util.stream.Collectors;
 
+import com.mouyang.util.internal.Telemetry;
+
 /**
  * Setting a value or defining a behaviour for a particular enum value can be done by adding a new method to the enum. 
  * This however has limitations because Java enums are final Singletons defined at compile time.
@@ -34,6 +36,9 @@ import java.util.stream.Collectors;
  * @FunctionalInterfaces are currently supported by this: Runnable, Consumer, Supplier, Function, BiFunction, 
  * Predicate, BiPredicate.
  * 
+ * Where the handlers are methods known at compile time, {@link GenerateEnumVisitor} generates a switch-based visitor 
+ * instead, which checks that all values are handled during compilation.
+ * 
  * @author Matthew
  *
  * @param <E>
@@ -47,6 +52,7 @@ public class EnumVisitor<E extends Enum<E>, H> {
 	}
 	
 	public H visit(E e) {
+		Telemetry.enumDispatch(e);
 		return handlers.get(e);
 	}
 	
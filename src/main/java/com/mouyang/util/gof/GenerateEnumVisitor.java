@@ -0,0 +1,50 @@
+package com.mouyang.util.gof;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a type holding handler methods for the values of an enum, from which the java-utils-processor annotation
+ * processor generates a visitor at compile time.  It is the compile time counterpart of an {@link EnumVisitor} built
+ * through {@link EnumVisitor.AbstractEnumVisitorBuilderFactory}: the generated visitor dispatches with a switch on the
+ * enum, and a missing handler is a compilation error rather than an exception when the visitor is built.
+ * <p>
+ * Each handler method is marked with {@link Visit}, naming the values it handles.  All handler methods must take the
+ * same parameters and return the same type, which become those of the generated visit method after the enum value.
+ * The generated class is named after the holder with a Visitor suffix, the names of enclosing types joined by
+ * underscores, and is placed in the holder's package.
+ * </p>
+ * <blockquote><pre>
+ * &#64;GenerateEnumVisitor(value = Color.class, exceptions = "BLACK")
+ * interface ColorNames {
+ *     &#64;Visit("RED") String red(Locale locale);
+ *     &#64;Visit({"GREEN", "BLUE"}) String cool(Locale locale);
+ * }
+ *
+ * String name = new ColorNamesVisitor(colorNames).visit(Color.RED, Locale.FRENCH);
+ * </pre></blockquote>
+ * <p>
+ * The annotations are discarded by the compiler, so the generated code does not depend on this library at runtime.
+ * </p>
+ *
+ * @author Matthew
+ *
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateEnumVisitor {
+
+	/**
+	 * The enum visited.
+	 */
+	Class<? extends Enum<?>> value();
+
+	/**
+	 * The names of values which are not handled, as the exceptions of
+	 * {@link EnumVisitor.AbstractEnumVisitorBuilderFactory#newInstance(Class, Class, Enum[])}.  Visiting one throws an
+	 * IllegalArgumentException.
+	 */
+	String[] exceptions() default {};
+}
@@ -0,0 +1,80 @@
+package com.mouyang.util.gof;
+
+import java.util.*;
+
+/**
+ * This class implements a subset of the List methods needed by {@link ChainOfResponsibility} and
+ * {@link BatchChainOfResponsibility}: handlers can be added until the list is first frozen, after which it can no
+ * longer be modified.
+ *
+ * As an implemetation note, this was implemented as an abstract class instead of an interface in order to prevent
+ * exposing this class externally.  Java 8 does not have a concept of private interfaces.
+ *
+ * @author Matthew
+ *
+ * @param <H> the handler type
+ */
+abstract class HandlerListState<H> {
+	private final List<H> handlers;
+
+	/**
+	 * @return A list that cannot be modified, an in particular appended to.
+	 */
+	abstract HandlerListState<H> frozenList();
+
+	private HandlerListState(List<H> handlers) {
+		this.handlers = handlers;
+	}
+
+	/**
+	 * @return an empty list that can be added to until it is frozen.
+	 */
+	static <H> HandlerListState<H> modifiable() {
+		return new ModifiableHandlerListState<>();
+	}
+
+	void add(H t) {
+		handlers.add(t);
+	}
+
+	/**
+	 * Returns a list of the handlers without changing the object state.
+	 */
+	List<H> get() {
+		return handlers;
+	}
+
+	private static class ModifiableHandlerListState<H> extends HandlerListState<H> {
+		/**
+		 * Start with an empty list.
+		 */
+		ModifiableHandlerListState() {
+			super(new ArrayList<>());
+		}
+
+		/**
+		 * Transitions to an unmodifiable state.
+		 */
+		HandlerListState<H> frozenList() {
+			return new UnmodifiableHandlerListState<>(get());
+		}
+	}
+
+	private static class UnmodifiableHandlerListState<H> extends HandlerListState<H> {
+		/**
+		 * Internally implemented with Collections.unmodifiableList, this will prevent any further modifications.
+		 * Calling add in this state will result in an UnsupportedOperationException because the object itself returned
+		 * by unmodifiableList will throw that exception.
+		 */
+		UnmodifiableHandlerListState(List<H> handlers) {
+			super(Collections.unmodifiableList(handlers));
+		}
+
+		/**
+		 * As this is a terminating state, this implementation will return itself.
+		 */
+		HandlerListState<H> frozenList() {
+			return this;
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package com.mouyang.util.gof;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler method of a {@link GenerateEnumVisitor} type.
+ *
+ * @author Matthew
+ *
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface Visit {
+
+	/**
+	 * The names of the enum values handled, checked against the enum at compile time.
+	 */
+	String[] value();
+}
@@ -0,0 +1,67 @@
+package com.mouyang.util.internal;
+
+import java.util.function.Predicate;
+
+/**
+ * Hooks through which the library reports its work to Java Flight Recorder.
+ * <p>
+ * JFR is not available to Java 8 code, so every hook in this implementation does nothing, and is compiled away once
+ * inlined.  On JDK 17 and later it is replaced by one that records JFR events, which does no more than check whether
+ * an event is enabled while recording is off.
+ * </p>
+ *
+ * @author Matthew
+ *
+ */
+public final class Telemetry {
+
+	/**
+	 * Iterators report their progress every this many elements.  A power of 2, so that the check is a mask.
+	 */
+	public static final long ITERATOR_PROGRESS_INTERVAL = 1 << 16;
+
+	private Telemetry() {
+	}
+
+	/**
+	 * Starts timing a walk through a chain of responsibility.
+	 *
+	 * @return a token to pass to {@link #chainWalkEnd(Object, Class, int, int)}, null if the walk is not recorded.
+	 */
+	public static Object chainWalkStart() {
+		return null;
+	}
+
+	/**
+	 * @param handlerIndex the index of the handler that answered, or -1 if none did.
+	 */
+	public static void chainWalkEnd(Object token, Class<?> chain, int handlerIndex, int handlers) {
+	}
+
+	/**
+	 * Counts a dispatch on an enum constant, for a periodic summary per constant.
+	 */
+	public static void enumDispatch(Enum<?> constant) {
+	}
+
+	/**
+	 * Where evaluations are recorded, only the outermost of nested composites records one.
+	 *
+	 * @param kind the name of the composition, such as allOf.
+	 * @return a predicate that records how long each evaluation of the composite took, or the composite itself where
+	 * that is not supported.
+	 */
+	public static <T> Predicate<T> predicateComposite(Predicate<T> composite, String kind, int clauses) {
+		return composite;
+	}
+
+	/**
+	 * Reports that an iterator has produced a further {@link #ITERATOR_PROGRESS_INTERVAL} elements.
+	 *
+	 * @param token the value returned by the previous report, or 0 for the first.
+	 * @return a token to pass to the next report.
+	 */
+	public static long iteratorProgress(long token, Class<?> iterator, long elements) {
+		return 0;
+	}
+}
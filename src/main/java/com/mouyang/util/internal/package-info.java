@@ -0,0 +1,26 @@
+package com.mouyang.util.internal;
+/**
+ * Implementation details shared between the packages of this library.  Nothing here is part of its API, and it may 
+ * change without notice.
+ * <p>
+ * {@link com.mouyang.util.internal.Telemetry} reports the work of the library to Java Flight Recorder on JDK 17 and 
+ * later.  All of its events are disabled by default, and are enabled, with thresholds, through JFR settings: 
+ * </p>
+ * <blockquote><pre>
+ * &lt;event name="com.mouyang.util.ChainWalk"&gt;
+ *   &lt;setting name="enabled"&gt;true&lt;/setting&gt;
+ *   &lt;setting name="threshold"&gt;1 ms&lt;/setting&gt;
+ * &lt;/event&gt;
+ * &lt;event name="com.mouyang.util.EnumDispatch"&gt;
+ *   &lt;setting name="enabled"&gt;true&lt;/setting&gt;
+ *   &lt;setting name="period"&gt;1 s&lt;/setting&gt;
+ * &lt;/event&gt;
+ * &lt;event name="com.mouyang.util.PredicateEvaluation"&gt;
+ *   &lt;setting name="enabled"&gt;true&lt;/setting&gt;
+ *   &lt;setting name="threshold"&gt;100 us&lt;/setting&gt;
+ * &lt;/event&gt;
+ * &lt;event name="com.mouyang.util.IteratorProgress"&gt;
+ *   &lt;setting name="enabled"&gt;true&lt;/setting&gt;
+ * &lt;/event&gt;
+ * </pre></blockquote>
+ */
\ No newline at end of file
@@ -1,7 +1,7 @@
 package com.mouyang.util.lang;
 
-import static com.mouyang.util.VarArgs.nullSafe;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.BooleanSupplier;
 
 /**
@@ -40,6 +40,14 @@ import java.util.function.BooleanSupplier;
  * ); 
  * </pre></blockquote>
  * 
+ * Exception cases that are evaluated repeatedly can be collected into an {@link UnlessGuard} to cache and reorder 
+ * them, or into a {@link PreparedUnless} to evaluate them without allocating.
+ * <p>
+ * The Runnable block can also be executed asynchronously with <code>unlessAsync</code>.  The exception cases are still 
+ * evaluated on the calling thread, so only the block itself is moved off it.  Blocks that can be grouped together, such 
+ * as audit writes, can be given a {@link com.mouyang.util.concurrent.BatchingExecutor}.
+ * </p>
+ * 
  * @author Matthew
  *
  */
@@ -55,12 +63,37 @@ public class DoUnlessExpression {
 		return new DoUnlessExpression(runnable);
 	}
 
+	/**
+	 * Null inputs will be ignored.  The array is traversed directly rather than through 
+	 * {@link com.mouyang.util.VarArgs#nullSafe(Object...)} so that no intermediate collection is created.
+	 */
 	public void unless(BooleanSupplier... booleanSuppliers) {
-		for (BooleanSupplier booleanSupplier : nullSafe(booleanSuppliers)) {
-			if (booleanSupplier.getAsBoolean()) {
-				return;
+		if (!anySatisfied(booleanSuppliers)) {
+			runnable.run();
+		}
+	}
+
+	/**
+	 * Asynchronous version of {@link #unless(BooleanSupplier...)}.  The exception cases are evaluated on the calling 
+	 * thread; the Runnable block is executed by the executor if none of them are satisfied.
+	 * 
+	 * @return a future completed when the Runnable block has executed, or an already completed future if any of the 
+	 * exception cases were satisfied.
+	 */
+	public CompletableFuture<Void> unlessAsync(Executor executor, BooleanSupplier... booleanSuppliers) {
+		return anySatisfied(booleanSuppliers) 
+			? CompletableFuture.completedFuture(null) 
+			: CompletableFuture.runAsync(runnable, executor);
+	}
+	
+	private static boolean anySatisfied(BooleanSupplier... booleanSuppliers) {
+		if (null != booleanSuppliers) {
+			for (BooleanSupplier booleanSupplier : booleanSuppliers) {
+				if (null != booleanSupplier && booleanSupplier.getAsBoolean()) {
+					return true;
+				}
 			}
 		}
-		runnable.run();
+		return false;
 	}
 }
@@ -0,0 +1,172 @@
+package com.mouyang.util.lang;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * A value that is computed the first time it is needed and reused afterwards.  This is the <code>lazy val</code> of
+ * Scala and the <code>by lazy</code> of Kotlin.
+ * </p><p>
+ * The value is computed at most once at a time: when several threads ask for a value that has not been computed yet,
+ * one of them computes it and the others wait for its result.  Once the value has been published, reading it costs a
+ * single volatile read, with no locking.  If the computation throws, the exception is rethrown to every waiting
+ * thread and the next call tries again.
+ * </p><p>
+ * Optionally, the value can expire after a fixed duration, after which the next call recomputes it, and it can be
+ * discarded explicitly with {@link #reset()}.
+ * </p>
+ * <p>
+ * The following code blocks are equivalent, except that the second does not lock once initialized
+ * <blockquote><pre>
+ * private Config config;
+ *
+ * synchronized Config config() {
+ *     if (null == config) {
+ *         config = loadConfig();
+ *     }
+ *     return config;
+ * }
+ * </pre></blockquote>
+ * <blockquote><pre>
+ * private final LazyExpression&lt;Config&gt; config = _lazy(() -&gt; loadConfig());
+ *
+ * Config config() {
+ *     return config.get();
+ * }
+ * </pre></blockquote>
+ * </p>
+ * <p>
+ * The supplier must not call {@link #get()} on the same instance; doing so results in an IllegalStateException rather
+ * than a deadlock.
+ * </p>
+ *
+ * @author Matthew
+ *
+ * @param <T>
+ */
+public class LazyExpression<T> implements Supplier<T> {
+	private static final long NEVER = 0;
+
+	private final Supplier<? extends T> supplier;
+	private final long ttlNanos;
+	private final Publication<Value<T>, Computation<T>> publication = new Publication<>();
+
+	private static class Value<T> {
+		private final T value;
+		private final long expiresAt;
+
+		private Value(T value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private static class Computation<T> {
+		private final Thread owner = Thread.currentThread();
+		private final CompletableFuture<Value<T>> result = new CompletableFuture<>();
+	}
+
+	private LazyExpression(Supplier<? extends T> supplier, long ttlNanos) {
+		this.supplier = Objects.requireNonNull(supplier, "supplier");
+		this.ttlNanos = ttlNanos;
+	}
+
+	public static <T> LazyExpression<T> _lazy(Supplier<? extends T> supplier) {
+		return new LazyExpression<>(supplier, NEVER);
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the duration is not positive.
+	 */
+	public static <T> LazyExpression<T> _lazy(Supplier<? extends T> supplier, long ttl, TimeUnit unit) {
+		if (ttl < 1) {
+			throw new IllegalArgumentException("ttl must be positive");
+		}
+		return new LazyExpression<>(supplier, unit.toNanos(ttl));
+	}
+
+	@Override
+	public T get() {
+		Value<T> current = publication.published();
+		if (isValid(current)) {
+			return current.value;
+		}
+		return compute();
+	}
+
+	/**
+	 * Discards the current value so that the next call to {@link #get()} recomputes it.  A computation already in
+	 * progress is not affected.
+	 */
+	public void reset() {
+		publication.publish(null);
+	}
+
+	/**
+	 * @return true if a value has been computed and has not expired or been reset.
+	 */
+	public boolean isInitialized() {
+		return isValid(publication.published());
+	}
+
+	private boolean isValid(Value<T> current) {
+		return null != current && (NEVER == ttlNanos || System.nanoTime() - current.expiresAt < 0);
+	}
+
+	private T compute() {
+		while (true) {
+			Computation<T> computation = publication.pending();
+			if (null != computation) {
+				if (computation.owner == Thread.currentThread()) {
+					throw new IllegalStateException("lazy value is referenced by its own initialization");
+				}
+				return await(computation);
+			}
+			// another thread may have published a value between the fast path and here
+			Value<T> current = publication.published();
+			if (isValid(current)) {
+				return current.value;
+			}
+			computation = new Computation<>();
+			if (publication.claim(computation)) {
+				return computeAs(computation);
+			}
+		}
+	}
+
+	private T computeAs(Computation<T> computation) {
+		try {
+			// another thread may have claimed, published and released between the check in compute() and this claim
+			Value<T> computed = publication.published();
+			if (!isValid(computed)) {
+				computed = new Value<>(supplier.get(), System.nanoTime() + ttlNanos);
+				publication.publish(computed);
+			}
+			computation.result.complete(computed);
+			return computed.value;
+		} catch (RuntimeException | Error e) {
+			computation.result.completeExceptionally(e);
+			throw e;
+		} finally {
+			publication.release();
+		}
+	}
+
+	private T await(Computation<T> computation) {
+		try {
+			return computation.result.join().value;
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+	}
+}
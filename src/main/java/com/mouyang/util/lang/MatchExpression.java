@@ -0,0 +1,276 @@
+package com.mouyang.util.lang;
+
+import static java.lang.String.format;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * This construct expresses a selection among several cases, each of which maps the matched value to a result.
+ * <p>
+ * This is analogous to <code>match</code> in Scala and Rust, or <code>when</code> in Kotlin.  Cases are tried in the
+ * order they are declared and the first that matches determines the result.  If none match, the result is determined
+ * by the <code>otherwise</code> case, which is mandatory.
+ * </p>
+ * <p>
+ * For example, the following
+ * </p>
+ * <blockquote><pre>
+ * String describe(int status) {
+ *     if (status == 200) {
+ *         return "ok";
+ *     } else if (status == 404) {
+ *         return "not found";
+ *     } else if (500 &lt;= status &amp;&amp; status &lt;= 599) {
+ *         return "server error";
+ *     } else if (isRetryable(status)) {
+ *         return "retry";
+ *     } else {
+ *         return "unknown";
+ *     }
+ * }
+ * </pre></blockquote>
+ *
+ * would be replaced by
+ *
+ * <blockquote><pre>
+ * private static final Matcher&lt;Integer, String&gt; DESCRIBE = MatchExpression.&lt;Integer, String&gt;_match()
+ *     .when(200, s -&gt; "ok")
+ *     .when(404, s -&gt; "not found")
+ *     .whenBetween(500, 599, s -&gt; "server error")
+ *     .when(s -&gt; isRetryable(s), s -&gt; "retry")
+ *     .otherwise(s -&gt; "unknown");
+ * ...
+ * DESCRIBE.apply(status);
+ * </pre></blockquote>
+ * <p>
+ * The cases are compiled once by <code>otherwise</code>.  Constant cases are looked up in a table (an array for
+ * dense Integer constants, a hash table otherwise), range cases are binary searched, and only predicate cases are
+ * tested one by one.  Predicate cases declared after a matching constant or range case are not tested at all.  This
+ * makes the cost of a match independent of the number of constant and range cases.
+ * </p>
+ * <p>
+ * Range cases are inclusive on both ends, require values with a natural ordering, and must not overlap each other.
+ * </p>
+ *
+ * @author Matthew
+ *
+ * @param <T> type of the matched value
+ * @param <R> type of the result
+ */
+public class MatchExpression<T, R> {
+	private static final int NO_MATCH = Integer.MAX_VALUE;
+
+	/**
+	 * Integer constants are looked up in an array when it would be at most this many times larger than the number of
+	 * constants.
+	 */
+	private static final int MAX_DENSE_TABLE_SPREAD = 4;
+
+	private final List<Function<? super T, ? extends R>> results = new ArrayList<>();
+	private final Map<Object, Integer> constants = new HashMap<>();
+	private final List<Range> ranges = new ArrayList<>();
+	private final List<Integer> predicateIndices = new ArrayList<>();
+	private final List<Predicate<? super T>> predicates = new ArrayList<>();
+
+	private static class Range {
+		@SuppressWarnings("rawtypes")
+		private final Comparable from;
+		@SuppressWarnings("rawtypes")
+		private final Comparable to;
+		private final int index;
+
+		@SuppressWarnings("rawtypes")
+		private Range(Comparable from, Comparable to, int index) {
+			this.from = from;
+			this.to = to;
+			this.index = index;
+		}
+	}
+
+	private MatchExpression() {
+	}
+
+	public static <T, R> MatchExpression<T, R> _match() {
+		return new MatchExpression<>();
+	}
+
+	/**
+	 * Matches values equal to the constant, which may be null.
+	 */
+	public MatchExpression<T, R> when(T constant, Function<? super T, ? extends R> result) {
+		constants.putIfAbsent(null == constant ? NullKey.INSTANCE : constant, addResult(result));
+		return this;
+	}
+
+	/**
+	 * Matches values between from and to, inclusive.
+	 *
+	 * @throws IllegalArgumentException if from is greater than to.
+	 * @throws ClassCastException if from and to do not have a natural ordering.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public MatchExpression<T, R> whenBetween(T from, T to, Function<? super T, ? extends R> result) {
+		Comparable comparableFrom = (Comparable) Objects.requireNonNull(from, "from");
+		Comparable comparableTo = (Comparable) Objects.requireNonNull(to, "to");
+		if (comparableFrom.compareTo(comparableTo) > 0) {
+			throw new IllegalArgumentException(format("empty range [%s, %s]", from, to));
+		}
+		ranges.add(new Range(comparableFrom, comparableTo, addResult(result)));
+		return this;
+	}
+
+	/**
+	 * Matches values satisfying the predicate.
+	 */
+	public MatchExpression<T, R> when(Predicate<? super T> predicate, Function<? super T, ? extends R> result) {
+		predicates.add(Objects.requireNonNull(predicate, "predicate"));
+		predicateIndices.add(addResult(result));
+		return this;
+	}
+
+	/**
+	 * Completes the cases and compiles them into a reusable Matcher.
+	 *
+	 * @throws IllegalArgumentException if any range cases overlap.
+	 */
+	public Matcher<T, R> otherwise(Function<? super T, ? extends R> result) {
+		return new Matcher<>(this, Objects.requireNonNull(result, "result"));
+	}
+
+	private int addResult(Function<? super T, ? extends R> result) {
+		results.add(Objects.requireNonNull(result, "result"));
+		return results.size() - 1;
+	}
+
+	/**
+	 * Stands in for null constants, which HashMap would otherwise accept but the dense table would not.
+	 */
+	private enum NullKey {
+		INSTANCE
+	}
+
+	/**
+	 * A compiled, immutable set of cases.  Safe for concurrent use provided the case functions are.
+	 *
+	 * @param <T> type of the matched value
+	 * @param <R> type of the result
+	 */
+	public static class Matcher<T, R> implements Function<T, R> {
+		private final Function<? super T, ? extends R>[] results;
+		private final Function<? super T, ? extends R> otherwise;
+
+		private final Map<Object, Integer> constants;
+		private final int nullIndex;
+		private final int[] denseTable;
+		private final int denseOffset;
+
+		@SuppressWarnings("rawtypes")
+		private final Comparable[] rangeFroms;
+		@SuppressWarnings("rawtypes")
+		private final Comparable[] rangeTos;
+		private final int[] rangeIndices;
+
+		private final Predicate<? super T>[] predicates;
+		private final int[] predicateIndices;
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private Matcher(MatchExpression<T, R> cases, Function<? super T, ? extends R> otherwise) {
+			this.results = cases.results.toArray(new Function[0]);
+			this.otherwise = otherwise;
+
+			Map<Object, Integer> constants = new HashMap<>(cases.constants);
+			Integer nullIndex = constants.remove(NullKey.INSTANCE);
+			this.nullIndex = (null == nullIndex) ? NO_MATCH : nullIndex;
+			int[] denseTable = null;
+			int denseOffset = 0;
+			if (!constants.isEmpty() && constants.keySet().stream().allMatch(k -> k instanceof Integer)) {
+				IntSummaryStatistics keys = constants.keySet().stream().mapToInt(k -> (Integer) k).summaryStatistics();
+				long spread = (long) keys.getMax() - keys.getMin() + 1;
+				if (spread <= (long) MAX_DENSE_TABLE_SPREAD * constants.size()) {
+					denseOffset = keys.getMin();
+					denseTable = new int[(int) spread];
+					Arrays.fill(denseTable, NO_MATCH);
+					for (Map.Entry<Object, Integer> entry : constants.entrySet()) {
+						denseTable[(Integer) entry.getKey() - denseOffset] = entry.getValue();
+					}
+					constants = Collections.emptyMap();
+				}
+			}
+			this.constants = constants;
+			this.denseTable = denseTable;
+			this.denseOffset = denseOffset;
+
+			List<Range> ranges = new ArrayList<>(cases.ranges);
+			ranges.sort((a, b) -> a.from.compareTo(b.from));
+			for (int i = 1; i < ranges.size(); i++) {
+				Range previous = ranges.get(i - 1);
+				Range current = ranges.get(i);
+				if (current.from.compareTo(previous.to) <= 0) {
+					throw new IllegalArgumentException(format("range [%s, %s] overlaps range [%s, %s]",
+						current.from, current.to, previous.from, previous.to));
+				}
+			}
+			this.rangeFroms = ranges.stream().map(r -> r.from).toArray(Comparable[]::new);
+			this.rangeTos = ranges.stream().map(r -> r.to).toArray(Comparable[]::new);
+			this.rangeIndices = ranges.stream().mapToInt(r -> r.index).toArray();
+
+			this.predicates = cases.predicates.toArray(new Predicate[0]);
+			this.predicateIndices = cases.predicateIndices.stream().mapToInt(Integer::intValue).toArray();
+		}
+
+		@Override
+		public R apply(T t) {
+			int index = Math.min(constantIndex(t), rangeIndex(t));
+			for (int i = 0; i < predicates.length && predicateIndices[i] < index; i++) {
+				if (predicates[i].test(t)) {
+					index = predicateIndices[i];
+					break;
+				}
+			}
+			return (NO_MATCH == index) ? otherwise.apply(t) : results[index].apply(t);
+		}
+
+		private int constantIndex(T t) {
+			if (null == t) {
+				return nullIndex;
+			}
+			if (null != denseTable) {
+				if (!(t instanceof Integer)) {
+					return NO_MATCH;
+				}
+				int offset = (Integer) t - denseOffset;
+				return (offset >= 0 && offset < denseTable.length) ? denseTable[offset] : NO_MATCH;
+			}
+			if (constants.isEmpty()) {
+				return NO_MATCH;
+			}
+			Integer index = constants.get(t);
+			return (null == index) ? NO_MATCH : index;
+		}
+
+		/**
+		 * Finds the last range starting at or before the value, which is the only one that can contain it.
+		 */
+		@SuppressWarnings("unchecked")
+		private int rangeIndex(T t) {
+			if (null == t || 0 == rangeFroms.length) {
+				return NO_MATCH;
+			}
+			int low = 0;
+			int high = rangeFroms.length - 1;
+			int candidate = -1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				if (rangeFroms[middle].compareTo(t) <= 0) {
+					candidate = middle;
+					low = middle + 1;
+				} else {
+					high = middle - 1;
+				}
+			}
+			return (candidate >= 0 && rangeTos[candidate].compareTo(t) >= 0) ? rangeIndices[candidate] : NO_MATCH;
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package com.mouyang.util.lang;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+
+/**
+ * An immutable, precompiled set of exception cases for {@link DoUnlessExpression}.
+ * <p>
+ * <code>_do(runnable).unless(a, b, c)</code> creates a DoUnlessExpression and a varargs array every time it is
+ * evaluated.  A PreparedUnless is created once, with null conditions removed up front, and can then be evaluated any
+ * number of times without allocating.  Guards of up to three conditions are held in fields rather than an array.
+ * </p>
+ * <p>
+ * The following code blocks are equivalent
+ * </p>
+ * <blockquote><pre>
+ * _do(runnable).unless(condition1, condition2);
+ * </pre></blockquote>
+ * <blockquote><pre>
+ * private static final PreparedUnless GUARD = prepare(condition1, condition2);
+ * ...
+ * GUARD.run(runnable);
+ * </pre></blockquote>
+ * <p>
+ * As the Runnable block is passed on each call, it should not capture local variables if allocation is a concern.
+ * </p>
+ *
+ * @author Matthew
+ *
+ */
+public abstract class PreparedUnless implements BooleanSupplier {
+
+	private PreparedUnless() {
+	}
+
+	/**
+	 * Null inputs will be ignored.
+	 */
+	public static PreparedUnless prepare(BooleanSupplier... booleanSuppliers) {
+		BooleanSupplier[] conditions = (null == booleanSuppliers)
+			? new BooleanSupplier[0]
+			: Arrays.stream(booleanSuppliers).filter(Objects::nonNull).toArray(BooleanSupplier[]::new);
+		switch (conditions.length) {
+		case 0:
+			return Unconditional.INSTANCE;
+		case 1:
+			return new Unless1(conditions[0]);
+		case 2:
+			return new Unless2(conditions[0], conditions[1]);
+		case 3:
+			return new Unless3(conditions[0], conditions[1], conditions[2]);
+		default:
+			return new UnlessN(conditions);
+		}
+	}
+
+	/**
+	 * @return true if any of the exception cases are satisfied.
+	 */
+	@Override
+	public abstract boolean getAsBoolean();
+
+	/**
+	 * Executes the Runnable block unless any of the exception cases are satisfied.
+	 */
+	public void run(Runnable runnable) {
+		if (!getAsBoolean()) {
+			runnable.run();
+		}
+	}
+
+	private static final class Unconditional extends PreparedUnless {
+		private static final Unconditional INSTANCE = new Unconditional();
+
+		@Override
+		public boolean getAsBoolean() {
+			return false;
+		}
+	}
+
+	private static final class Unless1 extends PreparedUnless {
+		private final BooleanSupplier a;
+
+		private Unless1(BooleanSupplier a) {
+			this.a = a;
+		}
+
+		@Override
+		public boolean getAsBoolean() {
+			return a.getAsBoolean();
+		}
+	}
+
+	private static final class Unless2 extends PreparedUnless {
+		private final BooleanSupplier a;
+		private final BooleanSupplier b;
+
+		private Unless2(BooleanSupplier a, BooleanSupplier b) {
+			this.a = a;
+			this.b = b;
+		}
+
+		@Override
+		public boolean getAsBoolean() {
+			return a.getAsBoolean() || b.getAsBoolean();
+		}
+	}
+
+	private static final class Unless3 extends PreparedUnless {
+		private final BooleanSupplier a;
+		private final BooleanSupplier b;
+		private final BooleanSupplier c;
+
+		private Unless3(BooleanSupplier a, BooleanSupplier b, BooleanSupplier c) {
+			this.a = a;
+			this.b = b;
+			this.c = c;
+		}
+
+		@Override
+		public boolean getAsBoolean() {
+			return a.getAsBoolean() || b.getAsBoolean() || c.getAsBoolean();
+		}
+	}
+
+	private static final class UnlessN extends PreparedUnless {
+		private final BooleanSupplier[] conditions;
+
+		private UnlessN(BooleanSupplier[] conditions) {
+			this.conditions = conditions;
+		}
+
+		@Override
+		public boolean getAsBoolean() {
+			for (int i = 0; i < conditions.length; i++) {
+				if (conditions[i].getAsBoolean()) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
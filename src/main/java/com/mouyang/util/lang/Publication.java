@@ -0,0 +1,50 @@
+package com.mouyang.util.lang;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Holds a published value and a pending claim to compute it, for {@link LazyExpression}.
+ * <p>
+ * Publishing must make everything written before it visible to any thread that subsequently reads the published value, 
+ * and claiming must succeed for exactly one thread while no claim is pending.  This implementation uses volatile fields 
+ * and a field updater.
+ * On JDK 17 and later it is replaced by one using VarHandle acquire/release access, which avoids the full fence of a 
+ * volatile write when publishing.
+ * </p>
+ * 
+ * @author Matthew
+ *
+ * @param <V> type of the published value
+ * @param <P> type of the pending claim
+ */
+final class Publication<V, P> {
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<Publication, Object> PENDING = 
+		AtomicReferenceFieldUpdater.newUpdater(Publication.class, Object.class, "pending");
+	
+	private volatile V published;
+	private volatile P pending;
+	
+	final V published() {
+		return published;
+	}
+	
+	final void publish(V value) {
+		published = value;
+	}
+	
+	final P pending() {
+		return pending;
+	}
+	
+	/**
+	 * @return true if no claim was pending and the given claim is now pending.
+	 */
+	final boolean claim(P claim) {
+		return PENDING.compareAndSet(this, null, claim);
+	}
+	
+	final void release() {
+		pending = null;
+	}
+}
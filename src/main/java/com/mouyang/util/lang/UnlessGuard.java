@@ -0,0 +1,344 @@
+package com.mouyang.util.lang;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import com.mouyang.util.concurrent.DefaultExecutors;
+
+/**
+ * A reusable set of exception cases for {@link DoUnlessExpression}.  The guard is satisfied (and the Runnable block
+ * will not execute) if any of its conditions are satisfied, exactly as with the varargs form of
+ * <code>unless</code>.
+ * <p>
+ * Unlike the varargs form, a guard is intended to be built once and evaluated many times, which allows it to
+ * </p>
+ * <ol>
+ * <li>Cache - the result of a condition can be reused for a configurable amount of time.</li>
+ * <li>Reorder - conditions are evaluated in order of their observed cost divided by how often they are satisfied, so
+ * that cheap conditions which usually short-circuit the evaluation are tried first.</li>
+ * <li>Parallelize - conditions declared as expensive can be evaluated concurrently on an Executor, and the evaluation
+ * stops waiting as soon as any of them is satisfied.</li>
+ * </ol>
+ * <p>
+ * Since the evaluation order is not the declaration order, conditions should not depend on each other's side effects.
+ * </p>
+ * <blockquote><pre>
+ * UnlessGuard guard = UnlessGuard.builder()
+ *     .condition(() -&gt; maintenanceMode)
+ *     .expensiveCondition(() -&gt; featureFlags.isDisabled("audit"), 30, SECONDS)
+ *     .expensiveCondition(() -&gt; quota.isExceeded(), 1, SECONDS)
+ *     .concurrently(executor)
+ *     .build();
+ * ...
+ * _do( () -&gt; {
+ *     // do something
+ * }).unless(guard);
+ * </pre></blockquote>
+ *
+ * @author Matthew
+ *
+ */
+public class UnlessGuard implements BooleanSupplier {
+
+	/**
+	 * The evaluation order is recalculated after this many evaluations of the guard.
+	 */
+	private static final int REORDER_INTERVAL = 64;
+
+	private final Condition[] conditions;
+	private final Executor executor;
+	private final AtomicInteger evaluations = new AtomicInteger();
+	private volatile Condition[] cheapOrder;
+	private volatile Condition[] expensiveOrder;
+
+	/**
+	 * A condition along with its cached result and the statistics used to order it.
+	 */
+	private static class Condition {
+		private final BooleanSupplier booleanSupplier;
+		private final long ttlNanos;
+		private final boolean expensive;
+		private final AtomicLong evaluations = new AtomicLong();
+		private final AtomicLong satisfied = new AtomicLong();
+		private final AtomicLong elapsedNanos = new AtomicLong();
+		private volatile CachedResult cachedResult;
+		/**
+		 * The evaluation running on the executor, if any, which concurrent evaluations of the guard wait on rather
+		 * than submitting the condition again.
+		 */
+		private final AtomicReference<CompletableFuture<Boolean>> inFlight = new AtomicReference<>();
+
+		private Condition(BooleanSupplier booleanSupplier, long ttlNanos, boolean expensive) {
+			this.booleanSupplier = booleanSupplier;
+			this.ttlNanos = ttlNanos;
+			this.expensive = expensive;
+		}
+
+		/**
+		 * @return the cached result if it has not expired, null otherwise.
+		 */
+		Boolean cached(long now) {
+			CachedResult result = cachedResult;
+			return (null != result && now - result.expiresAt < 0) ? result.value : null;
+		}
+
+		boolean evaluate() {
+			long now = System.nanoTime();
+			Boolean cached = cached(now);
+			if (null != cached) {
+				return cached;
+			}
+			boolean value = booleanSupplier.getAsBoolean();
+			long end = System.nanoTime();
+			evaluations.incrementAndGet();
+			elapsedNanos.addAndGet(end - now);
+			if (value) {
+				satisfied.incrementAndGet();
+			}
+			if (ttlNanos > 0) {
+				cachedResult = new CachedResult(value, end + ttlNanos);
+			}
+			return value;
+		}
+
+		/**
+		 * @return the evaluation already running on the executor, or a new one if there is none.
+		 */
+		CompletableFuture<Boolean> evaluateAsync(Executor executor) {
+			while (true) {
+				CompletableFuture<Boolean> running = inFlight.get();
+				if (null != running) {
+					return running;
+				}
+				CompletableFuture<Boolean> started = new CompletableFuture<>();
+				if (!inFlight.compareAndSet(null, started)) {
+					continue;
+				}
+				try {
+					executor.execute(() -> {
+						try {
+							started.complete(evaluate());
+						} catch (Throwable t) {
+							started.completeExceptionally(t);
+						} finally {
+							inFlight.compareAndSet(started, null);
+						}
+					});
+				} catch (RejectedExecutionException e) {
+					inFlight.compareAndSet(started, null);
+					started.completeExceptionally(e);
+				}
+				return started;
+			}
+		}
+
+		/**
+		 * Conditions of a disjunction are best evaluated in ascending order of cost over probability of being
+		 * satisfied.  Both are estimated from observations, with the probability smoothed so that conditions that
+		 * have never been evaluated or never been satisfied still get a finite rank.
+		 */
+		double rank() {
+			long n = evaluations.get();
+			double averageCost = (0 == n) ? 0 : (double) elapsedNanos.get() / n;
+			double probability = (satisfied.get() + 1.0) / (n + 2.0);
+			return averageCost / probability;
+		}
+	}
+
+	private static class CachedResult {
+		private final boolean value;
+		private final long expiresAt;
+
+		private CachedResult(boolean value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private UnlessGuard(List<Condition> conditions, Executor executor) {
+		this.conditions = conditions.toArray(new Condition[0]);
+		this.executor = executor;
+		reorder();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return true if any condition is satisfied, false if none are (including when there are no conditions).
+	 */
+	@Override
+	public boolean getAsBoolean() {
+		if (0 == evaluations.incrementAndGet() % REORDER_INTERVAL) {
+			reorder();
+		}
+		for (Condition condition : cheapOrder) {
+			if (condition.evaluate()) {
+				return true;
+			}
+		}
+		Condition[] expensive = expensiveOrder;
+		if (null == executor || expensive.length < 2) {
+			for (Condition condition : expensive) {
+				if (condition.evaluate()) {
+					return true;
+				}
+			}
+			return false;
+		}
+		return evaluateConcurrently(expensive);
+	}
+
+	/**
+	 * Cached results are checked on the calling thread; the remaining conditions are submitted to the executor, unless
+	 * they are already running there, in which case that evaluation is waited on instead.  The returned value is
+	 * decided by the first satisfied condition, or once every condition has completed if none are.  A condition that
+	 * throws only fails the evaluation if no other condition is satisfied.  Conditions still running once the result is
+	 * decided are left to complete in the background, which refreshes their cached results.
+	 */
+	private boolean evaluateConcurrently(Condition[] expensive) {
+		long now = System.nanoTime();
+		List<Condition> pending = new ArrayList<>(expensive.length);
+		for (Condition condition : expensive) {
+			Boolean cached = condition.cached(now);
+			if (null == cached) {
+				pending.add(condition);
+			} else if (cached) {
+				return true;
+			}
+		}
+		if (pending.isEmpty()) {
+			return false;
+		}
+		CompletableFuture<Boolean> result = new CompletableFuture<>();
+		AtomicInteger remaining = new AtomicInteger(pending.size());
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		for (Condition condition : pending) {
+			condition.evaluateAsync(executor).whenComplete((value, throwable) -> {
+				if (null == throwable && value) {
+					result.complete(true);
+					return;
+				}
+				if (null != throwable) {
+					failure.compareAndSet(null, throwable);
+				}
+				if (0 == remaining.decrementAndGet()) {
+					if (null == failure.get()) {
+						result.complete(false);
+					} else {
+						result.completeExceptionally(failure.get());
+					}
+				}
+			});
+		}
+		return result.join();
+	}
+
+	/**
+	 * Sorts a snapshot of the conditions by rank.  Concurrent evaluations may observe either the previous or the new
+	 * order, both of which are valid.
+	 */
+	private void reorder() {
+		Condition[] sorted = conditions.clone();
+		double[] ranks = new double[sorted.length];
+		for (int i = 0; i < sorted.length; i++) {
+			ranks[i] = sorted[i].rank();
+		}
+		Integer[] indices = new Integer[sorted.length];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = i;
+		}
+		Arrays.sort(indices, (a, b) -> Double.compare(ranks[a], ranks[b]));
+		List<Condition> cheap = new ArrayList<>();
+		List<Condition> expensive = new ArrayList<>();
+		for (Integer index : indices) {
+			(sorted[index].expensive ? expensive : cheap).add(sorted[index]);
+		}
+		this.cheapOrder = cheap.toArray(new Condition[0]);
+		this.expensiveOrder = expensive.toArray(new Condition[0]);
+	}
+
+	/**
+	 * Collects conditions before creating an UnlessGuard.  Null conditions are ignored, consistent with
+	 * {@link DoUnlessExpression#unless(BooleanSupplier...)}.
+	 *
+	 * @author Matthew
+	 *
+	 */
+	public static class Builder {
+		private final List<Condition> conditions = new ArrayList<>();
+		private Executor executor;
+
+		private Builder() {
+		}
+
+		/**
+		 * Adds a condition that is evaluated every time.
+		 */
+		public Builder condition(BooleanSupplier booleanSupplier) {
+			return add(booleanSupplier, 0, NANOSECONDS, false);
+		}
+
+		/**
+		 * Adds a condition whose result is reused for the given duration.
+		 */
+		public Builder condition(BooleanSupplier booleanSupplier, long ttl, TimeUnit unit) {
+			return add(booleanSupplier, ttl, unit, false);
+		}
+
+		/**
+		 * Adds a condition that is evaluated after all non-expensive conditions, concurrently with other expensive
+		 * conditions if an Executor has been specified.
+		 */
+		public Builder expensiveCondition(BooleanSupplier booleanSupplier) {
+			return add(booleanSupplier, 0, NANOSECONDS, true);
+		}
+
+		/**
+		 * Adds an expensive condition whose result is reused for the given duration.
+		 */
+		public Builder expensiveCondition(BooleanSupplier booleanSupplier, long ttl, TimeUnit unit) {
+			return add(booleanSupplier, ttl, unit, true);
+		}
+
+		/**
+		 * Evaluate expensive conditions on the given Executor.  Without an Executor, they are evaluated sequentially
+		 * on the calling thread.
+		 */
+		public Builder concurrently(Executor executor) {
+			this.executor = Objects.requireNonNull(executor, "executor");
+			return this;
+		}
+
+		/**
+		 * Evaluate expensive conditions on {@link DefaultExecutors#blockingTasks()}.
+		 */
+		public Builder concurrently() {
+			return concurrently(DefaultExecutors.blockingTasks());
+		}
+
+		public UnlessGuard build() {
+			return new UnlessGuard(conditions, executor);
+		}
+
+		private Builder add(BooleanSupplier booleanSupplier, long ttl, TimeUnit unit, boolean expensive) {
+			if (ttl < 0) {
+				throw new IllegalArgumentException("ttl must not be negative");
+			}
+			if (null != booleanSupplier) {
+				conditions.add(new Condition(booleanSupplier, unit.toNanos(ttl), expensive));
+			}
+			return this;
+		}
+	}
+}
@@ -1,7 +1,11 @@
 package com.mouyang.util.lang;
 
+import java.nio.ByteBuffer;
 import java.util.function.Consumer;
 
+import com.mouyang.util.concurrent.ObjectPool;
+import com.mouyang.util.nio.BufferArena;
+
 /**
  * <p>
  * Compacts an expression into a variable to be used in a scope. This is seen in Python (but with no cleanup as there 
@@ -33,6 +37,31 @@ import java.util.function.Consumer;
  * ...
  * </pre></blockquote>
  * </p>
+ * <p>
+ * The pooled variant borrows the value from an {@link ObjectPool} and returns it to the pool when the consumer exits, 
+ * normally or not.  The value is then reused by a later scope instead of being garbage.
+ * <blockquote><pre>
+ * ...
+ * StringBuilder sb = pool.borrow();
+ * try {
+ *     ...
+ * } finally {
+ *     pool.release(sb);
+ * }
+ * ...
+ * </pre></blockquote>
+ * <blockquote><pre>
+ * ...
+ * _withPooled(pool, (sb) -> {
+ *     ...
+ * });
+ * ...
+ * </pre></blockquote>
+ * </p>
+ * <p>
+ * Similarly, the buffer variant allocates an off-heap ByteBuffer from a {@link BufferArena} and releases it, along with 
+ * anything else allocated from the arena within the scope, when the consumer exits.  These scopes can be nested.
+ * </p>
  * @author Matthew
  *
  */
@@ -50,4 +79,28 @@ public class WithExpression<T> {
 	public void consume(Consumer<T> consumer) {
 		consumer.accept(object);
 	}
+	
+	/**
+	 * The consumer must not retain a reference to the value beyond its own execution.
+	 */
+	public static <T> void _withPooled(ObjectPool<T> pool, Consumer<? super T> consumer) {
+		T object = pool.borrow();
+		try {
+			consumer.accept(object);
+		} finally {
+			pool.release(object);
+		}
+	}
+	
+	/**
+	 * The consumer must not retain a reference to the buffer beyond its own execution.
+	 */
+	public static void _withBuffer(BufferArena arena, int size, Consumer<? super ByteBuffer> consumer) {
+		int mark = arena.mark();
+		try {
+			consumer.accept(arena.allocate(size));
+		} finally {
+			arena.reset(mark);
+		}
+	}
 }
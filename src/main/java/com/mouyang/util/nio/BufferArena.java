@@ -0,0 +1,96 @@
+package com.mouyang.util.nio;
+
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A per-thread region of off-heap memory from which direct ByteBuffers are carved out by bumping an offset.
+ * <p>
+ * Allocations are released in bulk by resetting the offset to a previously taken mark, which makes release O(1)
+ * regardless of how many buffers were allocated since the mark.  Marks and resets must therefore be nested like a
+ * stack.  {@link com.mouyang.util.lang.WithExpression#_withBuffer(BufferArena, int, java.util.function.Consumer)}
+ * takes care of this by tying an allocation to a lexical scope.
+ * </p>
+ * <p>
+ * Each thread gets its own region of the configured capacity the first time it allocates, so the off-heap memory used
+ * is bounded by the capacity times the number of allocating threads.  Allocations are aligned to 8 bytes.  Buffers
+ * must not be used after the mark preceding them is reset, and their contents are not cleared between uses.
+ * </p>
+ *
+ * @author Matthew
+ *
+ */
+public class BufferArena {
+	private static final int ALIGNMENT = 8;
+
+	private final int capacity;
+	private final ThreadLocal<Region> regions;
+
+	private static class Region {
+		private final ByteBuffer memory;
+		private int offset;
+
+		private Region(int capacity) {
+			this.memory = ByteBuffer.allocateDirect(capacity);
+		}
+	}
+
+	/**
+	 * @param capacity bytes of off-heap memory per thread.
+	 * @throws IllegalArgumentException if capacity is not positive.
+	 */
+	public BufferArena(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive");
+		}
+		this.capacity = capacity;
+		this.regions = ThreadLocal.withInitial(() -> new Region(capacity));
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return the current offset of the calling thread's region, to be passed to {@link #reset(int)}.
+	 */
+	public int mark() {
+		return regions.get().offset;
+	}
+
+	/**
+	 * @return a direct buffer of exactly the given size, with position 0 and limit equal to the size.
+	 * @throws BufferOverflowException if the calling thread's region does not have enough space remaining.
+	 */
+	public ByteBuffer allocate(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("size must not be negative");
+		}
+		Region region = regions.get();
+		int start = region.offset;
+		if (size > capacity - start) {
+			throw new BufferOverflowException();
+		}
+		region.offset = Math.min(capacity, (start + size + ALIGNMENT - 1) & -ALIGNMENT);
+		ByteBuffer slice = region.memory.duplicate();
+		// cast so that the Java 8 signatures returning Buffer are linked against
+		((Buffer) slice).limit(start + size);
+		((Buffer) slice).position(start);
+		return slice.slice();
+	}
+
+	/**
+	 * Releases every buffer allocated by the calling thread since the mark was taken.
+	 *
+	 * @throws IllegalStateException if the mark is ahead of the current offset, meaning a more recent mark has
+	 * already been reset.
+	 */
+	public void reset(int mark) {
+		Region region = regions.get();
+		if (mark < 0 || mark > region.offset) {
+			throw new IllegalStateException("marks must be reset in the reverse order they were taken");
+		}
+		region.offset = mark;
+	}
+}
@@ -0,0 +1,4 @@
+package com.mouyang.util.nio;
+/**
+ * Buffer management utilities complementing java.nio.
+ */
\ No newline at end of file
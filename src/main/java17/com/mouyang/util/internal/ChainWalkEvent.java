@@ -0,0 +1,27 @@
+package com.mouyang.util.internal;
+
+import jdk.jfr.*;
+
+/**
+ * A walk through a ChainOfResponsibility, from the first handler to the one that answered.
+ *
+ * @author Matthew
+ *
+ */
+@Name("com.mouyang.util.ChainWalk")
+@Label("Chain Walk")
+@Category("java-utils")
+@Description("A walk through a chain of responsibility")
+@Enabled(false)
+@StackTrace(true)
+class ChainWalkEvent extends Event {
+	@Label("Chain")
+	Class<?> chain;
+
+	@Label("Handler Index")
+	@Description("Index of the handler that answered, -1 if none did")
+	int handlerIndex;
+
+	@Label("Handlers")
+	int handlers;
+}
@@ -0,0 +1,27 @@
+package com.mouyang.util.internal;
+
+import jdk.jfr.*;
+
+/**
+ * The number of EnumVisitor dispatches on one constant over a period.
+ *
+ * @author Matthew
+ *
+ */
+@Name("com.mouyang.util.EnumDispatch")
+@Label("Enum Dispatch")
+@Category("java-utils")
+@Description("EnumVisitor dispatches per constant since the previous period")
+@Enabled(false)
+@Period("1 s")
+@StackTrace(false)
+class EnumDispatchEvent extends Event {
+	@Label("Enum")
+	Class<?> enumClass;
+
+	@Label("Constant")
+	String constant;
+
+	@Label("Count")
+	long count;
+}
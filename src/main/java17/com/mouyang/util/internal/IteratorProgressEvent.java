@@ -0,0 +1,27 @@
+package com.mouyang.util.internal;
+
+import jdk.jfr.*;
+
+/**
+ * Progress of a dimension iterator, reported every Telemetry.ITERATOR_PROGRESS_INTERVAL elements.
+ *
+ * @author Matthew
+ *
+ */
+@Name("com.mouyang.util.IteratorProgress")
+@Label("Iterator Progress")
+@Category("java-utils")
+@Description("Elements produced by a dimension iterator so far, and the rate since its previous report")
+@Enabled(false)
+@StackTrace(false)
+class IteratorProgressEvent extends Event {
+	@Label("Iterator")
+	Class<?> iterator;
+
+	@Label("Elements")
+	long elements;
+
+	@Label("Throughput")
+	@Frequency
+	double elementsPerSecond;
+}
@@ -0,0 +1,26 @@
+package com.mouyang.util.internal;
+
+import jdk.jfr.*;
+
+/**
+ * An evaluation of a PredicateFactory composite.
+ *
+ * @author Matthew
+ *
+ */
+@Name("com.mouyang.util.PredicateEvaluation")
+@Label("Predicate Evaluation")
+@Category("java-utils")
+@Description("An evaluation of a composite predicate built by PredicateFactory")
+@Enabled(false)
+@Threshold("100 us")
+class PredicateEvaluationEvent extends Event {
+	@Label("Kind")
+	String kind;
+
+	@Label("Clauses")
+	int clauses;
+
+	@Label("Result")
+	boolean result;
+}
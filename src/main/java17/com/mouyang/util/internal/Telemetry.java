@@ -0,0 +1,204 @@
+package com.mouyang.util.internal;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Hooks through which the library reports its work to Java Flight Recorder.
+ * <p>
+ * JDK 17 implementation: every hook first checks whether its event is enabled in any recording, and does nothing more
+ * if it is not.  Enum dispatches are counted per constant and summarized by a periodic event, since an event per
+ * dispatch would cost more than the dispatch itself.
+ * </p>
+ *
+ * @author Matthew
+ *
+ */
+public final class Telemetry {
+
+	/**
+	 * Iterators report their progress every this many elements.  A power of 2, so that the check is a mask.
+	 */
+	public static final long ITERATOR_PROGRESS_INTERVAL = 1 << 16;
+
+	private static final EventType CHAIN_WALK = EventType.getEventType(ChainWalkEvent.class);
+	private static final EventType ENUM_DISPATCH = EventType.getEventType(EnumDispatchEvent.class);
+	private static final EventType PREDICATE_EVALUATION = EventType.getEventType(PredicateEvaluationEvent.class);
+	private static final EventType ITERATOR_PROGRESS = EventType.getEventType(IteratorProgressEvent.class);
+
+	/**
+	 * Dispatch counters of an enum, indexed by ordinal.
+	 */
+	private static final class DispatchCounts {
+		private final Class<?> enumClass;
+		private final LongAdder[] counts;
+
+		private DispatchCounts(Class<?> enumClass) {
+			this.enumClass = enumClass;
+			this.counts = new LongAdder[enumClass.getEnumConstants().length];
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] = new LongAdder();
+			}
+		}
+	}
+
+	/**
+	 * Every enum's counters, for the periodic event.  The counters are only held strongly by their enum class, through
+	 * the ClassValue, so that counting dispatches does not keep the enum's class loader alive.
+	 */
+	private static final Queue<WeakReference<DispatchCounts>> ALL_DISPATCH_COUNTS = new ConcurrentLinkedQueue<>();
+	private static final ClassValue<DispatchCounts> DISPATCH_COUNTS = new ClassValue<DispatchCounts>() {
+		@Override
+		protected DispatchCounts computeValue(Class<?> enumClass) {
+			DispatchCounts dispatchCounts = new DispatchCounts(enumClass);
+			ALL_DISPATCH_COUNTS.add(new WeakReference<>(dispatchCounts));
+			return dispatchCounts;
+		}
+	};
+
+	/**
+	 * How many composite predicates are being evaluated by the thread, so that only the outermost is recorded.
+	 */
+	private static final ThreadLocal<int[]> PREDICATE_DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+	static {
+		FlightRecorder.addPeriodicEvent(EnumDispatchEvent.class, Telemetry::emitEnumDispatches);
+	}
+
+	private Telemetry() {
+	}
+
+	/**
+	 * Starts timing a walk through a chain of responsibility.
+	 *
+	 * @return a token to pass to {@link #chainWalkEnd(Object, Class, int, int)}, null if the walk is not recorded.
+	 */
+	public static Object chainWalkStart() {
+		if (!CHAIN_WALK.isEnabled()) {
+			return null;
+		}
+		ChainWalkEvent event = new ChainWalkEvent();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * @param handlerIndex the index of the handler that answered, or -1 if none did.
+	 */
+	public static void chainWalkEnd(Object token, Class<?> chain, int handlerIndex, int handlers) {
+		if (null == token) {
+			return;
+		}
+		ChainWalkEvent event = (ChainWalkEvent) token;
+		event.end();
+		if (event.shouldCommit()) {
+			event.chain = chain;
+			event.handlerIndex = handlerIndex;
+			event.handlers = handlers;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Counts a dispatch on an enum constant, for a periodic summary per constant.
+	 */
+	public static void enumDispatch(Enum<?> constant) {
+		if (null != constant && ENUM_DISPATCH.isEnabled()) {
+			DISPATCH_COUNTS.get(constant.getDeclaringClass()).counts[constant.ordinal()].increment();
+		}
+	}
+
+	/**
+	 * Nested composites, such as allOf(anyOf(..), ..), are each wrapped, but only the outermost one being evaluated on
+	 * a thread records an event, which covers the evaluation of those nested in it.
+	 *
+	 * @param kind the name of the composition, such as allOf.
+	 * @return a predicate that records how long each evaluation of the composite took.
+	 */
+	public static <T> Predicate<T> predicateComposite(Predicate<T> composite, String kind, int clauses) {
+		return t -> {
+			if (!PREDICATE_EVALUATION.isEnabled()) {
+				return composite.test(t);
+			}
+			final int[] depth = PREDICATE_DEPTH.get();
+			if (0 != depth[0]) {
+				return composite.test(t);
+			}
+			PredicateEvaluationEvent event = new PredicateEvaluationEvent();
+			event.begin();
+			final boolean result;
+			depth[0]++;
+			try {
+				result = composite.test(t);
+			} finally {
+				depth[0]--;
+			}
+			event.end();
+			if (event.shouldCommit()) {
+				event.kind = kind;
+				event.clauses = clauses;
+				event.result = result;
+				event.commit();
+			}
+			return result;
+		};
+	}
+
+	/**
+	 * Reports that an iterator has produced a further {@link #ITERATOR_PROGRESS_INTERVAL} elements.
+	 *
+	 * @param token the value returned by the previous report, or 0 for the first.
+	 * @return a token to pass to the next report.
+	 */
+	public static long iteratorProgress(long token, Class<?> iterator, long elements) {
+		if (!ITERATOR_PROGRESS.isEnabled()) {
+			return 0;
+		}
+		final long now = System.nanoTime();
+		IteratorProgressEvent event = new IteratorProgressEvent();
+		if (event.shouldCommit()) {
+			event.iterator = iterator;
+			event.elements = elements;
+			// the first report has nothing to measure throughput against
+			if (0 != token && now > token) {
+				event.elementsPerSecond = ITERATOR_PROGRESS_INTERVAL * (double) TimeUnit.SECONDS.toNanos(1)
+					/ (now - token);
+			}
+			event.commit();
+		}
+		return now;
+	}
+
+	/**
+	 * Emits an event for each constant dispatched on since the previous period.
+	 */
+	private static void emitEnumDispatches() {
+		for (Iterator<WeakReference<DispatchCounts>> i = ALL_DISPATCH_COUNTS.iterator(); i.hasNext();) {
+			final DispatchCounts dispatchCounts = i.next().get();
+			if (null == dispatchCounts) {
+				// the enum class has been unloaded
+				i.remove();
+				continue;
+			}
+			Object[] constants = dispatchCounts.enumClass.getEnumConstants();
+			for (int ordinal = 0; ordinal < constants.length; ordinal++) {
+				final long count = dispatchCounts.counts[ordinal].sumThenReset();
+				if (0 != count) {
+					EnumDispatchEvent event = new EnumDispatchEvent();
+					event.enumClass = dispatchCounts.enumClass;
+					event.constant = ((Enum<?>) constants[ordinal]).name();
+					event.count = count;
+					event.commit();
+				}
+			}
+		}
+	}
+}
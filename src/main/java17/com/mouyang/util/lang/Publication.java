@@ -0,0 +1,59 @@
+package com.mouyang.util.lang;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Holds a published value and a pending claim to compute it, for {@link LazyExpression}.
+ * <p>
+ * JDK 17 implementation: fields are accessed through VarHandles with acquire/release semantics, which give the same 
+ * visibility guarantees as volatile for this usage without the full fence of a volatile write.
+ * </p>
+ * 
+ * @author Matthew
+ *
+ * @param <V> type of the published value
+ * @param <P> type of the pending claim
+ */
+final class Publication<V, P> {
+	private static final VarHandle PUBLISHED;
+	private static final VarHandle PENDING;
+	
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			PUBLISHED = lookup.findVarHandle(Publication.class, "published", Object.class);
+			PENDING = lookup.findVarHandle(Publication.class, "pending", Object.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+	
+	private V published;
+	private P pending;
+	
+	@SuppressWarnings("unchecked")
+	final V published() {
+		return (V) PUBLISHED.getAcquire(this);
+	}
+	
+	final void publish(V value) {
+		PUBLISHED.setRelease(this, value);
+	}
+	
+	@SuppressWarnings("unchecked")
+	final P pending() {
+		return (P) PENDING.getAcquire(this);
+	}
+	
+	/**
+	 * @return true if no claim was pending and the given claim is now pending.
+	 */
+	final boolean claim(P claim) {
+		return PENDING.compareAndSet(this, null, claim);
+	}
+	
+	final void release() {
+		PENDING.setRelease(this, null);
+	}
+}
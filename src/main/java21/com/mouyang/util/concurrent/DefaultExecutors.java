@@ -0,0 +1,34 @@
+package com.mouyang.util.concurrent;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shared Executors used when the caller does not supply one.
+ * <p>
+ * JDK 21 implementation: blocking tasks each run on their own virtual thread, so waiting does not tie up a platform 
+ * thread.
+ * </p>
+ * 
+ * @author Matthew
+ *
+ */
+public class DefaultExecutors {
+	
+	private DefaultExecutors() {
+	}
+	
+	private static class BlockingTasks {
+		private static final ExecutorService INSTANCE = Executors.newThreadPerTaskExecutor(
+			Thread.ofVirtual().name("java-utils-blocking-", 1).factory());
+	}
+	
+	/**
+	 * @return an Executor suited to tasks that spend most of their time waiting, such as remote calls.  It is shared 
+	 * and must not be shut down.
+	 */
+	public static Executor blockingTasks() {
+		return BlockingTasks.INSTANCE;
+	}
+}
@@ -0,0 +1,110 @@
+package com.mouyang.util;
+
+import static java.lang.String.format;
+
+import java.lang.management.ManagementFactory;
+
+import org.testng.SkipException;
+
+/**
+ * Asserts how many bytes an operation allocates on the heap, as measured by the calling thread's allocation counter
+ * ({@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}).
+ * <p>
+ * The operation is warmed up first so that it is measured after JIT compilation and escape analysis, which is how it
+ * runs on a hot path.  It is then measured over many invocations, several times, and the lowest average is kept so that
+ * one-off allocations by the JVM itself (class loading, deoptimization) do not fail the assertion.  The operation must
+ * therefore be safe to invoke tens of thousands of times.
+ * </p>
+ * <p>
+ * On JVMs without per-thread allocation counters the assertions throw SkipException, which TestNG reports as a
+ * skipped test rather than a failure.
+ * </p>
+ * 
+ * @author Matthew
+ *
+ */
+public class AllocationAssertions {
+	private static final int WARMUP_INVOCATIONS = 50_000;
+	private static final int MEASURED_INVOCATIONS = 100_000;
+	private static final int TRIALS = 3;
+
+	/**
+	 * The bytes a trial of an operation that does not allocate may still be charged for, such as a lazily initialized
+	 * JVM structure.  Far less than one object per thousand invocations.
+	 */
+	private static final long NO_ALLOCATION_TOLERANCE = 1024;
+
+	private AllocationAssertions() {
+	}
+
+	/**
+	 * Fails unless the operation allocates nothing once warmed up, measured over all the invocations of a trial rather
+	 * than per invocation, so that an occasional allocation is not lost to rounding.
+	 */
+	public static void assertNoAllocation(Runnable operation) {
+		long measured = allocatedBytes(operation);
+		if (measured > NO_ALLOCATION_TOLERANCE) {
+			throw new AssertionError(format("allocated %d bytes over %d invocations, expected none", measured,
+				MEASURED_INVOCATIONS));
+		}
+	}
+
+	/**
+	 * Fails if the operation allocates more than the given number of bytes per invocation once warmed up.
+	 */
+	public static void assertAllocatesAtMost(long bytesPerInvocation, Runnable operation) {
+		long measured = bytesPerInvocation(operation);
+		if (measured > bytesPerInvocation) {
+			throw new AssertionError(format("allocated %d bytes per invocation, budget is %d", measured,
+				bytesPerInvocation));
+		}
+	}
+
+	/**
+	 * @return the average number of bytes allocated per invocation of the operation once warmed up, rounded up so that
+	 * any allocation at all counts as at least a byte.
+	 * @throws SkipException if the JVM does not support per-thread allocation counters.
+	 */
+	public static long bytesPerInvocation(Runnable operation) {
+		return (allocatedBytes(operation) + MEASURED_INVOCATIONS - 1) / MEASURED_INVOCATIONS;
+	}
+
+	/**
+	 * @return the number of bytes allocated by the least allocating trial of the operation once warmed up.
+	 * @throws SkipException if the JVM does not support per-thread allocation counters.
+	 */
+	private static long allocatedBytes(Runnable operation) {
+		com.sun.management.ThreadMXBean threadMXBean = threadMXBean();
+		long threadId = Thread.currentThread().getId();
+		for (int i = 0; i < WARMUP_INVOCATIONS; i++) {
+			operation.run();
+		}
+		long overhead = Long.MAX_VALUE;
+		long best = Long.MAX_VALUE;
+		for (int trial = 0; trial < TRIALS; trial++) {
+			long start = threadMXBean.getThreadAllocatedBytes(threadId);
+			overhead = Math.min(overhead, threadMXBean.getThreadAllocatedBytes(threadId) - start);
+			start = threadMXBean.getThreadAllocatedBytes(threadId);
+			for (int i = 0; i < MEASURED_INVOCATIONS; i++) {
+				operation.run();
+			}
+			best = Math.min(best, threadMXBean.getThreadAllocatedBytes(threadId) - start);
+		}
+		return Math.max(0, best - overhead);
+	}
+
+	private static com.sun.management.ThreadMXBean threadMXBean() {
+		java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+			throw new SkipException("per-thread allocation counters are not supported by this JVM");
+		}
+		com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+		if (!sunThreadMXBean.isThreadAllocatedMemorySupported()) {
+			throw new SkipException("per-thread allocation counters are not supported by this JVM");
+		}
+		if (!sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+			sunThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+		}
+		return sunThreadMXBean;
+	}
+}
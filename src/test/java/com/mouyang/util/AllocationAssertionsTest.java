@@ -0,0 +1,49 @@
+package com.mouyang.util;
+
+import static com.mouyang.util.AllocationAssertions.assertAllocatesAtMost;
+import static com.mouyang.util.AllocationAssertions.assertNoAllocation;
+import static com.mouyang.util.AllocationAssertions.bytesPerInvocation;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+public class AllocationAssertionsTest {
+	
+	private static volatile Object sink;
+	private static int counter;
+
+	@Test
+	public void noAllocation() {
+		assertNoAllocation(() -> counter++);
+	}
+
+	@Test
+	public void measuresAllocation() {
+		long bytes = bytesPerInvocation(() -> sink = new byte[1024]);
+		assertTrue(bytes >= 1024 && bytes < 2048, bytes + " bytes");
+	}
+
+	@Test(expectedExceptions = AssertionError.class)
+	public void overBudget() {
+		assertAllocatesAtMost(512, () -> sink = new byte[1024]);
+	}
+
+	@Test(expectedExceptions = AssertionError.class)
+	public void occasionalAllocation() {
+		assertNoAllocation(() -> {
+			if (0 == ++counter % 100) {
+				sink = new byte[64];
+			}
+		});
+	}
+
+	@Test
+	public void occasionalAllocationRoundsUp() {
+		long bytes = bytesPerInvocation(() -> {
+			if (0 == ++counter % 1000) {
+				sink = new byte[64];
+			}
+		});
+		assertTrue(bytes >= 1, bytes + " bytes");
+	}
+}
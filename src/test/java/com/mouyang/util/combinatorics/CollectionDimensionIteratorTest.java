@@ -0,0 +1,128 @@
+package com.mouyang.util.combinatorics;
+
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Stream;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class CollectionDimensionIteratorTest {
+
+	/**
+	 * Counts how many times it has been iterated.
+	 */
+	@SuppressWarnings("serial")
+	private static class CountingList<E> extends ArrayList<E> {
+		private int iterations;
+
+		CountingList(Collection<E> elements) {
+			super(elements);
+		}
+
+		@Override
+		public Iterator<E> iterator() {
+			iterations++;
+			return super.iterator();
+		}
+	}
+
+	@DataProvider
+	public Object[][] maxInMemoryElements() {
+		return new Object[][] { { Integer.MAX_VALUE }, { 2 }, { 0 } };
+	}
+
+	@Test(dataProvider = "maxInMemoryElements")
+	@SuppressWarnings("rawtypes")
+	public void materializedMatchesDefault(int maxInMemoryElements) {
+		Collection[] collections = {
+			Arrays.asList("a", "b", "c"),
+			Arrays.asList(1, 2),
+			new LinkedHashSet<>(Arrays.asList(10L, 20L, 30L, 40L)) };
+		List<List<Object>> expected = drain(new CollectionDimensionIterator(collections));
+		List<List<Object>> actual = drain(CollectionDimensionIterator.materialized(collections, maxInMemoryElements));
+		assertEquals(actual, expected);
+		assertEquals(actual.size(), 24);
+	}
+
+	@Test(dataProvider = "maxInMemoryElements")
+	@SuppressWarnings("rawtypes")
+	public void collectionsIteratedOnce(int maxInMemoryElements) {
+		CountingList<Integer> inner = new CountingList<>(Arrays.asList(1, 2, 3));
+		CountingList<Integer> middle = new CountingList<>(Arrays.asList(1, 2, 3));
+		CountingList<Integer> outer = new CountingList<>(Arrays.asList(1, 2, 3));
+		drain(CollectionDimensionIterator.materialized(new Collection[] { inner, middle, outer }, maxInMemoryElements));
+		assertEquals(inner.iterations, 1);
+		assertEquals(middle.iterations, 1);
+		assertEquals(outer.iterations, 1);
+	}
+
+	@Test
+	@SuppressWarnings("rawtypes")
+	public void defaultReiterates() {
+		CountingList<Integer> inner = new CountingList<>(Arrays.asList(1, 2, 3));
+		drain(new CollectionDimensionIterator(new Collection[] { inner, Arrays.asList(1, 2, 3) }));
+		assertTrue(inner.iterations > 1);
+	}
+
+	@Test(expectedExceptions = UncheckedIOException.class)
+	@SuppressWarnings("rawtypes")
+	public void spillRequiresSerializable() {
+		drain(CollectionDimensionIterator.materialized(
+			new Collection[] { Arrays.asList(new Object(), new Object()) }, 1));
+	}
+
+	@Test
+	@SuppressWarnings("rawtypes")
+	public void failedSpillDeletesFile() throws IOException {
+		final long before = spillFiles();
+		try {
+			drain(CollectionDimensionIterator.materialized(
+				new Collection[] { Arrays.asList(1, 2, new Object()) }, 1));
+			fail("spilled a non-serializable element");
+		} catch (UncheckedIOException e) {
+			assertEquals(spillFiles(), before);
+		}
+	}
+
+	@Test
+	@SuppressWarnings("rawtypes")
+	public void closeDeletesAbandonedSpill() throws IOException {
+		final long before = spillFiles();
+		try (CollectionDimensionIterator iterator = CollectionDimensionIterator.materialized(
+				new Collection[] { Arrays.asList(1, 2, 3, 4), Arrays.asList(5, 6, 7) }, 1)) {
+			iterator.hasNext();
+			iterator.next();
+			iterator.hasNext();
+			iterator.next();
+			assertEquals(spillFiles(), before + 1);
+		}
+		assertEquals(spillFiles(), before);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	@SuppressWarnings("rawtypes")
+	public void negativeMaxInMemoryElements() {
+		CollectionDimensionIterator.materialized(new Collection[] { Arrays.asList(1) }, -1);
+	}
+
+	private static long spillFiles() throws IOException {
+		try (Stream<Path> files = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+			return files.filter(path -> path.getFileName().toString().matches("dimension.*\\.spill")).count();
+		}
+	}
+
+	private static List<List<Object>> drain(CollectionDimensionIterator iterator) {
+		List<List<Object>> tuples = new ArrayList<>();
+		while (iterator.hasNext()) {
+			tuples.add(Arrays.asList(iterator.next()));
+		}
+		return tuples;
+	}
+}
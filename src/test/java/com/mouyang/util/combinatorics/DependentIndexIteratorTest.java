@@ -0,0 +1,143 @@
+package com.mouyang.util.combinatorics;
+
+import static com.mouyang.util.AllocationAssertions.assertNoAllocation;
+import static org.testng.Assert.*;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.testng.annotations.Test;
+
+public class DependentIndexIteratorTest {
+
+	private static final int[][] NEIGHBOURS = { { 1, 2 }, { 0 }, {}, { 0, 1, 2 } };
+
+	@Test
+	public void triangular() {
+		DependentIndexIterator iterator = DependentIndexIterator.builder()
+			.range(0, 4)
+			.range(c -> c[0], c -> 4)
+			.build();
+		List<List<Integer>> expected = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			for (int j = i; j < 4; j++) {
+				expected.add(Arrays.asList(i, j));
+			}
+		}
+		assertEquals(drain(iterator), expected);
+		try {
+			iterator.next();
+			fail();
+		} catch (NoSuchElementException e) {
+		}
+	}
+
+	@Test
+	public void values() {
+		DependentIndexIterator iterator = DependentIndexIterator.builder()
+			.range(0, NEIGHBOURS.length)
+			.values(c -> NEIGHBOURS[c[0]])
+			.build();
+		assertEquals(drain(iterator), Arrays.asList(
+			Arrays.asList(0, 1), Arrays.asList(0, 2),
+			Arrays.asList(1, 0),
+			Arrays.asList(3, 0), Arrays.asList(3, 1), Arrays.asList(3, 2)));
+	}
+
+	@Test
+	public void emptyInnerRangesSkipped() {
+		DependentIndexIterator iterator = DependentIndexIterator.builder()
+			.range(0, 5)
+			.range(c -> 0, c -> c[0] % 2)
+			.range(c -> c[0], c -> c[0] + 1)
+			.build();
+		assertEquals(drain(iterator), Arrays.asList(Arrays.asList(1, 0, 1), Arrays.asList(3, 0, 3)));
+	}
+
+	@Test
+	public void emptyOuterRange() {
+		assertFalse(DependentIndexIterator.builder().range(3, 3).range(0, 2).build().hasNext());
+		assertFalse(DependentIndexIterator.builder().values(c -> new int[0]).build().hasNext());
+	}
+
+	@Test
+	public void hasNextIdempotent() {
+		DependentIndexIterator iterator = DependentIndexIterator.builder().range(0, 2).build();
+		assertTrue(iterator.hasNext());
+		assertTrue(iterator.hasNext());
+		assertEquals(iterator.next()[0], 0);
+		assertEquals(iterator.next()[0], 1);
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void noDimensions() {
+		DependentIndexIterator.builder().build();
+	}
+
+	@Test
+	public void spliteratorSplitsOutermost() {
+		Spliterator<int[]> suffix = DependentIndexIterator.builder()
+			.range(0, 4)
+			.range(c -> c[0], c -> 4)
+			.build()
+			.spliterator();
+		assertEquals(suffix.estimateSize(), 4);
+		Spliterator<int[]> prefix = suffix.trySplit();
+		assertEquals(prefix.estimateSize(), 2);
+		assertEquals(suffix.estimateSize(), 2);
+		List<Integer> outer = new ArrayList<>();
+		prefix.forEachRemaining(c -> outer.add(c[0]));
+		assertEquals(outer, Arrays.asList(0, 0, 0, 0, 1, 1, 1));
+		outer.clear();
+		suffix.forEachRemaining(c -> outer.add(c[0]));
+		assertEquals(outer, Arrays.asList(2, 2, 3));
+	}
+
+	@Test
+	public void noSplitAfterStart() {
+		Spliterator<int[]> spliterator = DependentIndexIterator.builder().range(0, 4).build().spliterator();
+		assertTrue(spliterator.tryAdvance(c -> {
+		}));
+		assertNull(spliterator.trySplit());
+	}
+
+	@Test
+	public void parallelStream() {
+		final int n = 200;
+		List<String> actual = StreamSupport.stream(DependentIndexIterator.builder()
+				.range(0, n)
+				.range(c -> 0, c -> c[0])
+				.build()
+				.spliterator(), true)
+			.map(c -> c[0] + ":" + c[1])
+			.collect(Collectors.toList());
+		assertEquals(actual.size(), n * (n - 1) / 2);
+		assertEquals(actual.get(0), "1:0");
+		assertEquals(actual.get(actual.size() - 1), (n - 1) + ":" + (n - 2));
+	}
+
+	@Test
+	public void next_allocationFree() {
+		DependentIndexIterator iterator = DependentIndexIterator.builder()
+			.range(0, Integer.MAX_VALUE)
+			.range(c -> c[0] & 1, c -> 4)
+			.values(c -> NEIGHBOURS[c[1]])
+			.build();
+		assertNoAllocation(() -> iterator.next());
+	}
+
+	private static List<List<Integer>> drain(Iterator<int[]> iterator) {
+		List<List<Integer>> tuples = new ArrayList<>();
+		while (iterator.hasNext()) {
+			int[] c = iterator.next();
+			List<Integer> tuple = new ArrayList<>();
+			for (int i : c) {
+				tuple.add(i);
+			}
+			tuples.add(tuple);
+		}
+		return tuples;
+	}
+}
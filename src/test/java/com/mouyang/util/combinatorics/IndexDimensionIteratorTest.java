@@ -1,5 +1,6 @@
 package com.mouyang.util.combinatorics;
 
+import static com.mouyang.util.AllocationAssertions.assertNoAllocation;
 import static org.testng.Assert.*;
 
 import java.util.*;
@@ -33,6 +34,11 @@ public class IndexDimensionIteratorTest {
 		}
 	}
 	
+	@Test
+	public void next_allocationFree() {
+		IndexDimensionIterator di = new IndexDimensionIterator(new int[] {1000, 1000, 1000});
+		assertNoAllocation(() -> di.next());
+	}
 	
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	@Test(dataProvider = "dimensions")
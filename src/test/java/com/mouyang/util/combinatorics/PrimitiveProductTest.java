@@ -0,0 +1,110 @@
+package com.mouyang.util.combinatorics;
+
+import static com.mouyang.util.AllocationAssertions.assertAllocatesAtMost;
+import static org.testng.Assert.*;
+
+import java.util.*;
+
+import org.testng.annotations.Test;
+
+public class PrimitiveProductTest {
+
+	private static final int[][] DIMENSIONS = { { 1, 2, 3 }, { 10, 20 }, { 100, 200, 300, 400 } };
+
+	@Test
+	public void next() {
+		IntProduct product = new IntProduct(DIMENSIONS);
+		List<Integer> sums = new ArrayList<>();
+		while (product.hasNext()) {
+			int[] values = product.next();
+			sums.add(values[0] + values[1] + values[2]);
+		}
+		assertEquals(sums, expectedSums());
+		try {
+			product.next();
+			fail();
+		} catch (NoSuchElementException e) {
+		}
+	}
+
+	@Test
+	public void forEachRemaining() {
+		IntProduct product = new IntProduct(DIMENSIONS);
+		List<Integer> sums = new ArrayList<>();
+		product.forEachRemaining(values -> sums.add(values[0] + values[1] + values[2]));
+		assertEquals(sums, expectedSums());
+		assertFalse(product.hasNext());
+	}
+
+	@Test
+	public void forEachRemainingAfterNext() {
+		List<Integer> expected = expectedSums();
+		for (int consumed = 0; consumed <= expected.size(); consumed++) {
+			IntProduct product = new IntProduct(DIMENSIONS);
+			List<Integer> sums = new ArrayList<>();
+			for (int i = 0; i < consumed; i++) {
+				int[] values = product.next();
+				sums.add(values[0] + values[1] + values[2]);
+			}
+			product.forEachRemaining(values -> sums.add(values[0] + values[1] + values[2]));
+			assertEquals(sums, expected, "after " + consumed);
+		}
+	}
+
+	@Test
+	public void singleDimension() {
+		List<Integer> values = new ArrayList<>();
+		new IntProduct(new int[] { 5, 6, 7 }).forEachRemaining(v -> values.add(v[0]));
+		assertEquals(values, Arrays.asList(5, 6, 7));
+	}
+
+	@Test
+	public void emptyDimension() {
+		IntProduct product = new IntProduct(new int[] { 1, 2 }, new int[0]);
+		assertFalse(product.hasNext());
+		product.forEachRemaining(values -> fail());
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void noDimensions() {
+		new IntProduct();
+	}
+
+	@Test
+	public void longProduct() {
+		LongProduct product = new LongProduct(new long[] { Long.MAX_VALUE, 1 }, new long[] { -1 });
+		assertEquals(product.next(), new long[] { Long.MAX_VALUE, -1 });
+		assertEquals(product.next(), new long[] { 1, -1 });
+		assertFalse(product.hasNext());
+	}
+
+	@Test
+	public void doubleProduct() {
+		List<Double> sums = new ArrayList<>();
+		new DoubleProduct(new double[] { 0.5, 1.5 }, new double[] { 0.25, 0.75 })
+			.forEachRemaining(values -> sums.add(values[0] + values[1]));
+		assertEquals(sums, Arrays.asList(0.75, 1.75, 1.25, 2.25));
+	}
+
+	/**
+	 * Only the iterator itself may allocate, not the 10,000 tuples it produces.
+	 */
+	@Test
+	public void forEachRemaining_allocationFree() {
+		int[][] dimensions = { new int[100], new int[100] };
+		long[] sum = new long[1];
+		assertAllocatesAtMost(256, () -> new IntProduct(dimensions).forEachRemaining(values -> sum[0] += values[0]));
+	}
+
+	private static List<Integer> expectedSums() {
+		List<Integer> sums = new ArrayList<>();
+		for (int k : DIMENSIONS[2]) {
+			for (int j : DIMENSIONS[1]) {
+				for (int i : DIMENSIONS[0]) {
+					sums.add(i + j + k);
+				}
+			}
+		}
+		return sums;
+	}
+}
@@ -0,0 +1,170 @@
+package com.mouyang.util.combinatorics;
+
+import static org.testng.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.testng.annotations.Test;
+
+import com.mouyang.util.combinatorics.ProductPublisher.TupleBatch;
+
+public class ProductPublisherTest {
+
+	@SuppressWarnings("rawtypes")
+	private static final Collection[] COLLECTIONS = {
+		Arrays.asList("a", "b", "c"),
+		Arrays.asList(1, 2),
+		new LinkedHashSet<>(Arrays.asList(10L, 20L, 30L, 40L)) };
+
+	/**
+	 * Copies every batch it receives, and hands each one to a callback that may request more or cancel.
+	 */
+	private static class RecordingSubscriber implements Subscriber<TupleBatch> {
+		private final long initialRequest;
+		private final BiConsumer<Subscription, TupleBatch> onBatch;
+		private final List<List<Object>> tuples = new ArrayList<>();
+		private final List<Integer> batchSizes = new ArrayList<>();
+		private final CountDownLatch terminated = new CountDownLatch(1);
+		private Subscription subscription;
+		private Throwable error;
+		private boolean completed;
+
+		RecordingSubscriber(long initialRequest, BiConsumer<Subscription, TupleBatch> onBatch) {
+			this.initialRequest = initialRequest;
+			this.onBatch = onBatch;
+		}
+
+		@Override
+		public void onSubscribe(Subscription subscription) {
+			this.subscription = subscription;
+			subscription.request(initialRequest);
+		}
+
+		@Override
+		public void onNext(TupleBatch batch) {
+			batchSizes.add(batch.size());
+			for (int row = 0; row < batch.size(); row++) {
+				List<Object> tuple = new ArrayList<>();
+				for (int d = 0; d < batch.dimensions(); d++) {
+					tuple.add(batch.get(d, row));
+				}
+				tuples.add(tuple);
+			}
+			onBatch.accept(subscription, batch);
+		}
+
+		@Override
+		public void onError(Throwable error) {
+			this.error = error;
+			terminated.countDown();
+		}
+
+		@Override
+		public void onComplete() {
+			completed = true;
+			terminated.countDown();
+		}
+	}
+
+	@Test
+	public void unboundedDemand() {
+		RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE, (s, b) -> {
+		});
+		new ProductPublisher(COLLECTIONS, 5).subscribe(subscriber);
+		assertEquals(subscriber.tuples, expectedTuples());
+		assertEquals(subscriber.batchSizes, Arrays.asList(5, 5, 5, 5, 4));
+		assertTrue(subscriber.completed);
+		assertNull(subscriber.error);
+	}
+
+	@Test
+	public void requestOneAtATimeFromOnNext() {
+		RecordingSubscriber subscriber = new RecordingSubscriber(1, (s, b) -> s.request(1));
+		new ProductPublisher(COLLECTIONS, 4).subscribe(subscriber);
+		assertEquals(subscriber.tuples, expectedTuples());
+		assertEquals(subscriber.batchSizes, Arrays.asList(4, 4, 4, 4, 4, 4));
+		assertTrue(subscriber.completed);
+	}
+
+	@Test
+	public void honoursDemand() {
+		RecordingSubscriber subscriber = new RecordingSubscriber(2, (s, b) -> {
+		});
+		new ProductPublisher(COLLECTIONS, 3).subscribe(subscriber);
+		assertEquals(subscriber.tuples, expectedTuples().subList(0, 6));
+		assertFalse(subscriber.completed);
+		subscriber.subscription.request(100);
+		assertEquals(subscriber.tuples, expectedTuples());
+		assertTrue(subscriber.completed);
+	}
+
+	@Test
+	public void cancelMidProduct() {
+		RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE, (s, b) -> s.cancel());
+		new ProductPublisher(COLLECTIONS, 5).subscribe(subscriber);
+		assertEquals(subscriber.batchSizes, Arrays.asList(5));
+		assertFalse(subscriber.completed);
+		assertNull(subscriber.error);
+	}
+
+	@Test
+	public void nonPositiveRequest() {
+		RecordingSubscriber subscriber = new RecordingSubscriber(0, (s, b) -> fail());
+		new ProductPublisher(COLLECTIONS, 5).subscribe(subscriber);
+		assertTrue(subscriber.error instanceof IllegalArgumentException);
+	}
+
+	@Test
+	@SuppressWarnings("rawtypes")
+	public void emptyProductCompletesWithoutDemand() {
+		RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE, (s, b) -> fail());
+		new ProductPublisher(new Collection[] { Arrays.asList(1), Collections.emptyList() }, 5).subscribe(subscriber);
+		assertTrue(subscriber.completed);
+	}
+
+	@Test
+	public void independentSubscribers() {
+		ProductPublisher publisher = new ProductPublisher(COLLECTIONS, 7);
+		for (int i = 0; i < 2; i++) {
+			RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE, (s, b) -> {
+			});
+			publisher.subscribe(subscriber);
+			assertEquals(subscriber.tuples, expectedTuples());
+		}
+	}
+
+	@Test(timeOut = 10_000)
+	public void executorDelivery() throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			RecordingSubscriber subscriber = new RecordingSubscriber(1, (s, b) -> s.request(1));
+			new ProductPublisher(COLLECTIONS, 2, executor).subscribe(subscriber);
+			assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+			assertEquals(subscriber.tuples, expectedTuples());
+			assertTrue(subscriber.completed);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void nonPositiveBatchSize() {
+		new ProductPublisher(COLLECTIONS, 0);
+	}
+
+	private static List<List<Object>> expectedTuples() {
+		List<List<Object>> tuples = new ArrayList<>();
+		CollectionDimensionIterator iterator = new CollectionDimensionIterator(COLLECTIONS);
+		while (iterator.hasNext()) {
+			tuples.add(Arrays.asList(iterator.next()));
+		}
+		return tuples;
+	}
+}
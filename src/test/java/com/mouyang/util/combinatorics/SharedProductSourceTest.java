@@ -0,0 +1,119 @@
+package com.mouyang.util.combinatorics;
+
+import static com.mouyang.util.AllocationAssertions.assertNoAllocation;
+import static org.testng.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.testng.annotations.Test;
+
+public class SharedProductSourceTest {
+
+	@Test
+	public void sameOrderAsIndexDimensionIterator() {
+		int[] lengths = { 3, 2, 4 };
+		List<List<Integer>> expected = new ArrayList<>();
+		IndexDimensionIterator iterator = new IndexDimensionIterator(lengths);
+		while (iterator.hasNext()) {
+			expected.add(toList(iterator.next()));
+		}
+		SharedProductSource source = new SharedProductSource(lengths, 2, 1);
+		List<List<Integer>> actual = new ArrayList<>();
+		source.drain(indices -> actual.add(toList(indices)));
+		assertEquals(actual, expected);
+		assertEquals(source.size(), 24);
+		assertEquals(source.claimed(), 24);
+		assertEquals(source.completed(), 24);
+		assertTrue(source.isExhausted());
+	}
+
+	@Test
+	public void guidedChunkSizes() {
+		SharedProductSource source = new SharedProductSource(new int[] { 1000 }, 4, 10);
+		SharedProductSource.Chunk chunk = source.newChunk();
+		List<Long> sizes = new ArrayList<>();
+		while (source.claim(chunk)) {
+			sizes.add(chunk.to() - chunk.from());
+		}
+		assertEquals(sizes.get(0).longValue(), 125);
+		for (int i = 1; i < sizes.size(); i++) {
+			assertTrue(sizes.get(i) <= sizes.get(i - 1), sizes.toString());
+		}
+		for (int i = 0; i < sizes.size() - 1; i++) {
+			assertTrue(sizes.get(i) >= 10, sizes.toString());
+		}
+		assertEquals(sizes.stream().mapToLong(Long::longValue).sum(), 1000);
+		assertEquals(source.chunks(), sizes.size());
+		assertFalse(chunk.hasNext());
+	}
+
+	@Test
+	public void emptyDimension() {
+		SharedProductSource source = new SharedProductSource(new int[] { 3, 0 });
+		source.drain(indices -> fail());
+		assertEquals(source.size(), 0);
+		assertTrue(source.isExhausted());
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void noDimensions() {
+		new SharedProductSource(new int[0]);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void tooManyTuples() {
+		new SharedProductSource(new int[] { Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE });
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void foreignChunk() {
+		SharedProductSource source = new SharedProductSource(new int[] { 2 });
+		new SharedProductSource(new int[] { 2 }).claim(source.newChunk());
+	}
+
+	@Test(timeOut = 10_000)
+	public void everyTupleOnceAcrossWorkers() throws Exception {
+		final int workers = 4;
+		int[] lengths = { 50, 40, 30 };
+		SharedProductSource source = new SharedProductSource(lengths, workers, 8);
+		int[] seen = new int[(int) source.size()];
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < workers; i++) {
+				futures.add(executor.submit(() -> source.drain(indices -> {
+					int rank = indices[0] + lengths[0] * (indices[1] + lengths[1] * indices[2]);
+					synchronized (seen) {
+						seen[rank]++;
+					}
+				})));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		for (int count : seen) {
+			assertEquals(count, 1);
+		}
+		assertEquals(source.completed(), source.size());
+	}
+
+	@Test
+	public void next_allocationFree() {
+		SharedProductSource source = new SharedProductSource(new int[] { 1000, 1000, 1000 }, 1, 1);
+		SharedProductSource.Chunk chunk = source.newChunk();
+		source.claim(chunk);
+		assertNoAllocation(() -> chunk.next());
+	}
+
+	private static List<Integer> toList(int[] indices) {
+		List<Integer> list = new ArrayList<>();
+		for (int i : indices) {
+			list.add(i);
+		}
+		return list;
+	}
+}
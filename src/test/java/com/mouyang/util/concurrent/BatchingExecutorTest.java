@@ -0,0 +1,140 @@
+package com.mouyang.util.concurrent;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class BatchingExecutorTest {
+
+	private ScheduledExecutorService scheduler;
+	private List<Integer> handOffs;
+	private Executor countingDelegate;
+
+	@BeforeMethod
+	public void setUp() {
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		handOffs = new CopyOnWriteArrayList<>();
+		countingDelegate = task -> {
+			handOffs.add(handOffs.size());
+			task.run();
+		};
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	public void flushesWhenFull() {
+		List<Integer> executed = new ArrayList<>();
+		try (BatchingExecutor executor = new BatchingExecutor(countingDelegate, 3, 1, HOURS, scheduler)) {
+			for (int i = 0; i < 7; i++) {
+				final int value = i;
+				executor.execute(() -> executed.add(value));
+			}
+			assertEquals(handOffs.size(), 2);
+			assertEquals(executed, asList(0, 1, 2, 3, 4, 5));
+		}
+		assertEquals(handOffs.size(), 3);
+		assertEquals(executed, asList(0, 1, 2, 3, 4, 5, 6));
+	}
+
+	@Test(timeOut = 10_000)
+	public void flushesAfterWindow() throws InterruptedException {
+		CountDownLatch executed = new CountDownLatch(2);
+		try (BatchingExecutor executor = new BatchingExecutor(countingDelegate, 100, 10, MILLISECONDS, scheduler)) {
+			executor.execute(executed::countDown);
+			executor.execute(executed::countDown);
+			executed.await();
+			assertEquals(handOffs.size(), 1);
+		}
+	}
+
+	@Test
+	public void failureDoesNotStopBatch() {
+		List<Integer> executed = new ArrayList<>();
+		BatchingExecutor executor = new BatchingExecutor(Runnable::run, 3, 1, HOURS, scheduler);
+		executor.execute(() -> executed.add(0));
+		executor.execute(() -> {
+			throw new IllegalStateException("first");
+		});
+		try {
+			executor.execute(() -> executed.add(2));
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals(e.getMessage(), "first");
+		}
+		assertEquals(executed, asList(0, 2));
+	}
+
+	@Test(expectedExceptions = RejectedExecutionException.class)
+	public void rejectsAfterClose() {
+		BatchingExecutor executor = new BatchingExecutor(Runnable::run, 3, 1, HOURS, scheduler);
+		executor.close();
+		executor.execute(() -> {});
+	}
+
+	@Test(timeOut = 10_000)
+	public void completesFutures() throws Exception {
+		try (BatchingExecutor executor = new BatchingExecutor(countingDelegate, 2, 1, HOURS, scheduler)) {
+			CompletableFuture<Void> first = CompletableFuture.runAsync(() -> {}, executor);
+			CompletableFuture<Void> second = CompletableFuture.runAsync(() -> {}, executor);
+			CompletableFuture.allOf(first, second).get();
+			assertTrue(first.isDone() && second.isDone());
+			assertEquals(handOffs.size(), 1);
+		}
+	}
+
+	@Test
+	public void rejectedBatchRunsInline() {
+		List<Integer> executed = new ArrayList<>();
+		Executor rejecting = task -> {
+			throw new RejectedExecutionException("saturated");
+		};
+		try (BatchingExecutor executor = new BatchingExecutor(rejecting, 2, 1, HOURS, scheduler)) {
+			executor.execute(() -> executed.add(0));
+			executor.execute(() -> executed.add(1));
+			assertEquals(executed, asList(0, 1));
+			executor.execute(() -> executed.add(2));
+		}
+		assertEquals(executed, asList(0, 1, 2));
+	}
+
+	@Test
+	public void lateWindowDoesNotFlushNextBatch() {
+		List<Runnable> windows = new CopyOnWriteArrayList<>();
+		ScheduledExecutorService capturing = new ScheduledThreadPoolExecutor(1) {
+			@Override
+			public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+				windows.add(command);
+				return super.schedule(() -> {}, 1, HOURS);
+			}
+		};
+		try (BatchingExecutor executor = new BatchingExecutor(countingDelegate, 2, 1, HOURS, capturing)) {
+			executor.execute(() -> {});
+			executor.execute(() -> {});
+			executor.execute(() -> {});
+			assertEquals(handOffs.size(), 1);
+			assertEquals(windows.size(), 2);
+			// the first window elapsing after its batch was flushed by size, as if cancelled too late
+			windows.get(0).run();
+			assertEquals(handOffs.size(), 1);
+			windows.get(1).run();
+			assertEquals(handOffs.size(), 2);
+		} finally {
+			capturing.shutdownNow();
+		}
+	}
+}
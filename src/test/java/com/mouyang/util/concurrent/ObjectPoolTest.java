@@ -0,0 +1,90 @@
+package com.mouyang.util.concurrent;
+
+import static com.mouyang.util.lang.WithExpression._withPooled;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+public class ObjectPoolTest {
+
+	@Test
+	public void reusesReleasedObject() {
+		ObjectPool<StringBuilder> pool = new ObjectPool<>(StringBuilder::new);
+		StringBuilder first = pool.borrow();
+		pool.release(first);
+		assertSame(pool.borrow(), first);
+		assertNotSame(pool.borrow(), first);
+	}
+
+	@Test
+	public void resetOnRelease() {
+		ObjectPool<StringBuilder> pool = new ObjectPool<>(StringBuilder::new, sb -> sb.setLength(0), 1, 1);
+		_withPooled(pool, sb -> sb.append("abc"));
+		_withPooled(pool, sb -> assertEquals(sb.length(), 0));
+	}
+
+	@Test
+	public void releasedWhenConsumerThrows() {
+		ObjectPool<StringBuilder> pool = new ObjectPool<>(StringBuilder::new, null, 1, 0);
+		List<StringBuilder> borrowed = new ArrayList<>();
+		try {
+			_withPooled(pool, sb -> {
+				borrowed.add(sb);
+				throw new IllegalStateException();
+			});
+			fail();
+		} catch (IllegalStateException e) {
+		}
+		assertSame(pool.borrow(), borrowed.get(0));
+	}
+
+	@Test
+	public void bounded() {
+		AtomicInteger created = new AtomicInteger();
+		ObjectPool<Object> pool = new ObjectPool<>(() -> created.incrementAndGet(), null, 2, 3);
+		List<Object> borrowed = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			borrowed.add(pool.borrow());
+		}
+		borrowed.forEach(pool::release);
+		for (int i = 0; i < 10; i++) {
+			pool.borrow();
+		}
+		// 5 of the released objects were retained, so 5 more had to be created
+		assertEquals(created.get(), 15);
+	}
+
+	@Test(timeOut = 30_000)
+	public void sharedAcrossThreads() throws Exception {
+		ObjectPool<Object> pool = new ObjectPool<>(Object::new, null, 0, 16);
+		Set<Object> inUse = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 10_000; i++) {
+						_withPooled(pool, object -> {
+							if (!inUse.add(object)) {
+								throw new IllegalStateException("object borrowed twice");
+							}
+							inUse.remove(object);
+						});
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
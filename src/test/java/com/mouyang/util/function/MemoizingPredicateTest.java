@@ -0,0 +1,176 @@
+package com.mouyang.util.function;
+
+import static com.mouyang.util.function.PredicateFactory.allOf;
+import static com.mouyang.util.function.PredicateFactory.memoize;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.testng.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.testng.annotations.Test;
+
+public class MemoizingPredicateTest {
+
+	@Test
+	public void cachesByInput() {
+		AtomicInteger evaluations = new AtomicInteger();
+		MemoizingPredicate<String> predicate = memoize(s -> {
+			evaluations.incrementAndGet();
+			return s.matches("[a-z]+");
+		});
+		for (int i = 0; i < 10; i++) {
+			assertTrue(predicate.test("abc"));
+			assertFalse(predicate.test("ABC"));
+		}
+		assertEquals(evaluations.get(), 2);
+		assertEquals(predicate.missCount(), 2);
+		assertEquals(predicate.hitCount(), 18);
+		assertEquals(predicate.size(), 2);
+	}
+
+	@Test
+	public void nullInput() {
+		AtomicInteger evaluations = new AtomicInteger();
+		MemoizingPredicate<Object> predicate = memoize(o -> {
+			evaluations.incrementAndGet();
+			return null == o;
+		});
+		assertTrue(predicate.test(null));
+		assertTrue(predicate.test(null));
+		assertFalse(predicate.test(1));
+		assertEquals(evaluations.get(), 2);
+	}
+
+	@Test
+	public void keyedBy() {
+		AtomicInteger evaluations = new AtomicInteger();
+		MemoizingPredicate<String> predicate = MemoizingPredicate.<String>builder(s -> {
+			evaluations.incrementAndGet();
+			return s.length() > 3;
+		}).keyedBy(String::length).build();
+		assertFalse(predicate.test("abc"));
+		assertFalse(predicate.test("xyz"));
+		assertTrue(predicate.test("abcd"));
+		assertEquals(evaluations.get(), 2);
+	}
+
+	@Test
+	public void maximumSize() {
+		MemoizingPredicate<Integer> predicate = MemoizingPredicate.<Integer>builder(i -> i % 2 == 0)
+			.maximumSize(10)
+			.build();
+		for (int i = 0; i < 100; i++) {
+			predicate.test(i);
+		}
+		assertEquals(predicate.size(), 10);
+		assertEquals(predicate.weight(), 10);
+		assertEquals(predicate.evictionCount(), 90);
+	}
+
+	@Test
+	public void referencedEntriesSurviveEviction() {
+		AtomicInteger evaluations = new AtomicInteger();
+		MemoizingPredicate<Integer> predicate = MemoizingPredicate.<Integer>builder(i -> {
+			evaluations.incrementAndGet();
+			return true;
+		}).maximumSize(4).build();
+		predicate.test(-1);
+		for (int i = 0; i < 100; i++) {
+			predicate.test(-1);
+			predicate.test(i);
+		}
+		// only the first test of -1 missed
+		assertEquals(evaluations.get(), 101);
+	}
+
+	@Test
+	public void maximumWeight() {
+		MemoizingPredicate<String> predicate = MemoizingPredicate.<String>builder(String::isEmpty)
+			.maximumWeight(10, String::length)
+			.build();
+		predicate.test("aaaa");
+		predicate.test("bbbb");
+		assertEquals(predicate.weight(), 8);
+		assertEquals(predicate.evictionCount(), 0);
+		predicate.test("cccc");
+		assertEquals(predicate.weight(), 8);
+		assertEquals(predicate.evictionCount(), 1);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void negativeWeight() {
+		MemoizingPredicate.<String>builder(String::isEmpty).maximumWeight(10, s -> -1).build().test("");
+	}
+
+	@Test
+	public void expireAfterWrite() throws InterruptedException {
+		AtomicInteger evaluations = new AtomicInteger();
+		MemoizingPredicate<String> predicate = MemoizingPredicate.<String>builder(s -> {
+			evaluations.incrementAndGet();
+			return true;
+		}).expireAfterWrite(1, NANOSECONDS).build();
+		predicate.test("a");
+		Thread.sleep(1);
+		predicate.test("a");
+		assertEquals(evaluations.get(), 2);
+		assertEquals(predicate.size(), 1);
+	}
+
+	@Test
+	public void invalidateAll() {
+		MemoizingPredicate<String> predicate = memoize(String::isEmpty);
+		predicate.test("a");
+		predicate.test("b");
+		predicate.invalidateAll();
+		assertEquals(predicate.size(), 0);
+		assertEquals(predicate.weight(), 0);
+		predicate.test("a");
+		assertEquals(predicate.missCount(), 3);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void composesWithAllOf() {
+		AtomicInteger evaluations = new AtomicInteger();
+		Predicate<Integer> predicate = allOf(i -> i > 0, memoize(i -> {
+			evaluations.incrementAndGet();
+			return i < 10;
+		}));
+		for (int i = 0; i < 5; i++) {
+			assertTrue(predicate.test(5));
+			assertFalse(predicate.test(-5));
+		}
+		assertEquals(evaluations.get(), 1);
+	}
+
+	@Test(timeOut = 10_000)
+	public void concurrentBound() throws Exception {
+		MemoizingPredicate<Integer> predicate = MemoizingPredicate.<Integer>builder(i -> i % 3 == 0)
+			.maximumSize(64)
+			.build();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				futures.add(executor.submit(() -> {
+					Random random = new Random();
+					for (int i = 0; i < 100_000; i++) {
+						int input = random.nextInt(256);
+						assertEquals(predicate.test(input), input % 3 == 0);
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertTrue(predicate.size() <= 64, "size " + predicate.size());
+		assertEquals(predicate.weight(), predicate.size());
+		assertEquals(predicate.hitCount() + predicate.missCount(), 400_000);
+	}
+}
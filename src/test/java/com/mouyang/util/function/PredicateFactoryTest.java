@@ -1,10 +1,27 @@
 package com.mouyang.util.function;
 
 import static com.mouyang.util.function.PredicateFactory.allOf;
+import static com.mouyang.util.function.PredicateFactory.allOfAsync;
 import static com.mouyang.util.function.PredicateFactory.anyOf;
+import static com.mouyang.util.function.PredicateFactory.anyOfAsync;
+import static com.mouyang.util.function.PredicateFactory.parallelFilter;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.fail;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 import org.testng.annotations.Test;
@@ -180,4 +197,170 @@ public class PredicateFactoryTest {
 		assertTrue(predicate.test(15));
 		assertFalse(predicate.test(20));
 	}
+
+	@Test
+	public void allOfAsync_none() throws Exception {
+		AsyncPredicate<Integer> predicate = allOfAsync();
+		assertTrue(predicate.test(1).get());
+		assertTrue(allOfAsync((AsyncPredicate<Integer>) null).test(1).get());
+	}
+
+	@Test
+	public void anyOfAsync_none() throws Exception {
+		AsyncPredicate<Integer> predicate = anyOfAsync(null, null);
+		assertTrue(predicate.test(1).get());
+	}
+
+	@Test
+	public void allOfAsync_multipleWithNulls() throws Exception {
+		AsyncPredicate<Integer> predicate = allOfAsync(
+			null, i -> completedFuture(i > 0), null, i -> completedFuture(i < 10));
+		assertTrue(predicate.test(5).get());
+		assertFalse(predicate.test(-5).get());
+		assertFalse(predicate.test(15).get());
+	}
+
+	@Test
+	public void anyOfAsync_multipleWithNulls() throws Exception {
+		AsyncPredicate<Integer> predicate = anyOfAsync(
+			i -> completedFuture(i < 0), null, i -> completedFuture(i > 10));
+		assertTrue(predicate.test(-1).get());
+		assertTrue(predicate.test(11).get());
+		assertFalse(predicate.test(1).get());
+	}
+
+	@Test
+	public void allOfAsync_firstFalseDecidesAndCancels() throws Exception {
+		CompletableFuture<Boolean> pending = new CompletableFuture<>();
+		CompletableFuture<Boolean> deciding = new CompletableFuture<>();
+		AsyncPredicate<Integer> predicate = allOfAsync(i -> pending, i -> deciding);
+		CompletableFuture<Boolean> result = predicate.test(1);
+		assertFalse(result.isDone());
+		deciding.complete(false);
+		assertFalse(result.get());
+		assertTrue(pending.isCancelled());
+	}
+
+	@Test
+	public void anyOfAsync_firstTrueDecidesAndCancels() throws Exception {
+		CompletableFuture<Boolean> pending = new CompletableFuture<>();
+		CompletableFuture<Boolean> deciding = new CompletableFuture<>();
+		AsyncPredicate<Integer> predicate = anyOfAsync(i -> pending, i -> deciding);
+		CompletableFuture<Boolean> result = predicate.test(1);
+		deciding.complete(true);
+		assertTrue(result.get());
+		assertTrue(pending.isCancelled());
+	}
+
+	@Test
+	public void anyOfAsync_waitsForAllFalse() throws Exception {
+		CompletableFuture<Boolean> first = new CompletableFuture<>();
+		CompletableFuture<Boolean> second = new CompletableFuture<>();
+		CompletableFuture<Boolean> result = anyOfAsync((Integer i) -> first, i -> second).test(1);
+		first.complete(false);
+		assertFalse(result.isDone());
+		second.complete(false);
+		assertFalse(result.get());
+	}
+
+	@Test
+	public void allOfAsync_decidedBeforeLaterClausesStart() throws Exception {
+		AtomicInteger started = new AtomicInteger();
+		AsyncPredicate<Integer> predicate = allOfAsync(i -> completedFuture(false), i -> {
+			started.incrementAndGet();
+			return completedFuture(true);
+		});
+		assertFalse(predicate.test(1).get());
+		assertEquals(started.get(), 0);
+	}
+
+	@Test
+	public void allOfAsync_exceptional() throws Exception {
+		CompletableFuture<Boolean> pending = new CompletableFuture<>();
+		AsyncPredicate<Integer> predicate = allOfAsync(i -> pending, i -> {
+			throw new IllegalStateException();
+		});
+		try {
+			predicate.test(1).get();
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		assertTrue(pending.isCancelled());
+	}
+
+	@Test
+	public void allOfAsync_cancellingResultCancelsClauses() {
+		CompletableFuture<Boolean> pending = new CompletableFuture<>();
+		CompletableFuture<Boolean> result = allOfAsync((Integer i) -> pending).test(1);
+		result.cancel(true);
+		assertTrue(pending.isCancelled());
+	}
+
+	@Test(timeOut = 10_000)
+	public void anyOfAsync_concurrentClauses() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		CountDownLatch never = new CountDownLatch(1);
+		try {
+			AsyncPredicate<Integer> slow = i -> CompletableFuture.supplyAsync(() -> {
+				try {
+					never.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return false;
+			}, executor);
+			AsyncPredicate<Integer> fast = i -> CompletableFuture.supplyAsync(() -> i > 0, executor);
+			assertTrue(anyOfAsync(slow, slow, fast).test(1).get());
+		} finally {
+			never.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void parallelFilter_list() {
+		List<Integer> input = new ArrayList<>();
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < 100_003; i++) {
+			input.add(i);
+			if (i % 3 == 0 || i % 4096 == 4095) {
+				expected.add(i);
+			}
+		}
+		@SuppressWarnings("unchecked") Predicate<Integer> predicate = anyOf(i -> i % 3 == 0, i -> i % 4096 == 4095);
+		assertEquals(parallelFilter(input, predicate), expected);
+	}
+
+	@Test
+	public void parallelFilter_array() {
+		String[] input = new String[10_000];
+		for (int i = 0; i < input.length; i++) {
+			input[i] = Integer.toString(i);
+		}
+		String[] filtered = parallelFilter(input, s -> s.endsWith("7"));
+		assertEquals(filtered.getClass(), String[].class);
+		assertEquals(filtered.length, 1_000);
+		assertEquals(filtered[0], "7");
+		assertEquals(filtered[999], "9997");
+	}
+
+	@Test
+	public void parallelFilter_small() {
+		assertEquals(parallelFilter(asList(1, 2, 3, 4), i -> i % 2 == 0), asList(2, 4));
+		assertEquals(parallelFilter(new Integer[0], i -> true).length, 0);
+	}
+
+	@Test
+	public void parallelFilter_pool() {
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			Integer[] input = new Integer[50_000];
+			Arrays.fill(input, 1);
+			input[49_999] = 2;
+			assertEquals(parallelFilter(input, i -> i == 2, pool), new Integer[] { 2 });
+		} finally {
+			pool.shutdown();
+		}
+	}
 }
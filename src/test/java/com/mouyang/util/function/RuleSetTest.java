@@ -0,0 +1,161 @@
+package com.mouyang.util.function;
+
+import static com.mouyang.util.function.PredicateFactory.allOf;
+import static com.mouyang.util.function.RuleSet.between;
+import static com.mouyang.util.function.RuleSet.equal;
+import static org.testng.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.testng.annotations.Test;
+
+public class RuleSetTest {
+
+	private static class Trade {
+		private final String symbol;
+		private final Integer price;
+
+		Trade(String symbol, Integer price) {
+			this.symbol = symbol;
+			this.price = price;
+		}
+	}
+
+	private static RuleSet.Builder<Trade> builder() {
+		return RuleSet.<Trade>builder()
+			.field("symbol", t -> t.symbol)
+			.field("price", t -> t.price);
+	}
+
+	@Test
+	public void equalityAndRange() {
+		RuleSet<Trade> rules = builder()
+			.rule("cheap-apple", equal("symbol", "AAPL"), between("price", 0, 150))
+			.rule("any-apple", equal("symbol", "AAPL"))
+			.rule("expensive", between("price", 1000, Integer.MAX_VALUE))
+			.rule("mid", between("price", 100, 200))
+			.build();
+		assertEquals(sorted(rules.match(new Trade("AAPL", 120))), Arrays.asList("any-apple", "cheap-apple", "mid"));
+		assertEquals(sorted(rules.match(new Trade("AAPL", 150))), Arrays.asList("any-apple", "cheap-apple", "mid"));
+		assertEquals(sorted(rules.match(new Trade("AAPL", 151))), Arrays.asList("any-apple", "mid"));
+		assertEquals(sorted(rules.match(new Trade("MSFT", 5000))), Arrays.asList("expensive"));
+		assertEquals(rules.match(new Trade("MSFT", 50)), Collections.emptyList());
+	}
+
+	@Test
+	public void nullValues() {
+		RuleSet<Trade> rules = builder()
+			.rule("no-symbol", equal("symbol", null))
+			.rule("priced", between("price", Integer.MIN_VALUE, Integer.MAX_VALUE))
+			.build();
+		assertEquals(rules.match(new Trade(null, null)), Arrays.asList("no-symbol"));
+		assertEquals(rules.match(new Trade("AAPL", 1)), Arrays.asList("priced"));
+	}
+
+	@Test
+	public void unconditionalAndNullClauses() {
+		RuleSet<Trade> rules = builder()
+			.rule("always")
+			.rule("also-always", (RuleSet.Clause) null)
+			.build();
+		assertEquals(rules.match(new Trade("AAPL", 1)), Arrays.asList("always", "also-always"));
+	}
+
+	@Test
+	public void repeatedClauseCountsOnce() {
+		RuleSet<Trade> rules = builder()
+			.rule("apple", equal("symbol", "AAPL"), equal("symbol", "AAPL"))
+			.build();
+		assertEquals(rules.match(new Trade("AAPL", 1)), Arrays.asList("apple"));
+	}
+
+	@Test
+	public void contradictoryClausesNeverMatch() {
+		RuleSet<Trade> rules = builder()
+			.rule("impossible", equal("symbol", "AAPL"), equal("symbol", "MSFT"))
+			.build();
+		assertEquals(rules.match(new Trade("AAPL", 1)), Collections.emptyList());
+		assertEquals(rules.match(new Trade("MSFT", 1)), Collections.emptyList());
+	}
+
+	@Test
+	public void fieldsExtractedOnce() {
+		AtomicInteger extractions = new AtomicInteger();
+		RuleSet<Trade> rules = RuleSet.<Trade>builder()
+			.field("price", t -> {
+				extractions.incrementAndGet();
+				return t.price;
+			})
+			.rule("a", between("price", 0, 10))
+			.rule("b", between("price", 5, 15))
+			.rule("c", equal("price", 7))
+			.build();
+		assertEquals(sorted(rules.match(new Trade("AAPL", 7))), Arrays.asList("a", "b", "c"));
+		assertEquals(extractions.get(), 1);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void undeclaredField() {
+		builder().rule("r", equal("volume", 1));
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void duplicateRule() {
+		builder().rule("r").rule("r");
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void emptyRange() {
+		between("price", 2, 1);
+	}
+
+	/**
+	 * Compares with testing each rule as an allOf of the equivalent predicates.
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void sameAsAllOf() {
+		Random random = new Random(42);
+		String[] symbols = { "AAPL", "MSFT", "GOOG", "AMZN" };
+		RuleSet.Builder<Trade> builder = builder();
+		Map<String, Predicate<Trade>> predicates = new LinkedHashMap<>();
+		for (int i = 0; i < 500; i++) {
+			String symbol = symbols[random.nextInt(symbols.length)];
+			int from = random.nextInt(1000);
+			int to = from + random.nextInt(200);
+			String id = "rule" + i;
+			switch (i % 3) {
+			case 0:
+				builder.rule(id, equal("symbol", symbol), between("price", from, to));
+				predicates.put(id, allOf(t -> symbol.equals(t.symbol), t -> from <= t.price && t.price <= to));
+				break;
+			case 1:
+				builder.rule(id, between("price", from, to));
+				predicates.put(id, t -> from <= t.price && t.price <= to);
+				break;
+			default:
+				builder.rule(id, equal("symbol", symbol));
+				predicates.put(id, t -> symbol.equals(t.symbol));
+			}
+		}
+		RuleSet<Trade> rules = builder.build();
+		for (int i = 0; i < 1000; i++) {
+			Trade trade = new Trade(symbols[random.nextInt(symbols.length)], random.nextInt(1200));
+			List<String> expected = new ArrayList<>();
+			predicates.forEach((id, predicate) -> {
+				if (predicate.test(trade)) {
+					expected.add(id);
+				}
+			});
+			assertEquals(sorted(rules.match(trade)), sorted(expected));
+		}
+	}
+
+	private static List<String> sorted(List<String> ids) {
+		List<String> sorted = new ArrayList<>(ids);
+		Collections.sort(sorted);
+		return sorted;
+	}
+}
@@ -0,0 +1,145 @@
+package com.mouyang.util.gof;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.*;
+
+import org.testng.annotations.Test;
+
+public class BatchChainOfResponsibilityTest {
+
+	/**
+	 * A tier holding some of the values, which records the keys it was asked for.
+	 */
+	private static class Tier {
+		private final Map<Integer, String> values = new HashMap<>();
+		private final List<List<Integer>> requests = new ArrayList<>();
+
+		Tier(Integer... keys) {
+			for (Integer key : keys) {
+				values.put(key, "v" + key);
+			}
+		}
+
+		Map<Integer, String> resolve(Collection<Integer> keys) {
+			requests.add(new ArrayList<>(keys));
+			Map<Integer, String> found = new HashMap<>();
+			for (Integer key : keys) {
+				if (values.containsKey(key)) {
+					found.put(key, values.get(key));
+				}
+			}
+			return found;
+		}
+	}
+
+	@Test
+	public void onlyUnresolvedKeysGoOn() {
+		Tier local = new Tier(1, 2);
+		Tier shared = new Tier(2, 3);
+		Tier database = new Tier(1, 2, 3, 4);
+		BatchChainOfResponsibility<Integer, String> chain = new BatchChainOfResponsibility<>();
+		chain.add(local::resolve);
+		chain.add(shared::resolve);
+		chain.add(database::resolve);
+		Map<Integer, String> resolved = chain.resolveAll(Arrays.asList(5, 4, 3, 2, 1));
+		assertEquals(new ArrayList<>(resolved.keySet()), Arrays.asList(4, 3, 2, 1));
+		assertEquals(resolved.get(2), "v2");
+		assertEquals(local.requests, Arrays.asList(Arrays.asList(5, 4, 3, 2, 1)));
+		assertEquals(shared.requests, Arrays.asList(Arrays.asList(5, 4, 3)));
+		assertEquals(database.requests, Arrays.asList(Arrays.asList(5, 4)));
+	}
+
+	@Test
+	public void stopsOnceAllResolved() {
+		Tier local = new Tier(1, 2);
+		Tier database = new Tier(1, 2);
+		BatchChainOfResponsibility<Integer, String> chain = new BatchChainOfResponsibility<>();
+		chain.add(local::resolve);
+		chain.add(database::resolve);
+		assertEquals(chain.resolveAll(Arrays.asList(1, 2)).size(), 2);
+		assertTrue(database.requests.isEmpty());
+	}
+
+	@Test
+	public void precondition() {
+		Tier skipped = new Tier(1);
+		Tier database = new Tier(1);
+		BatchChainOfResponsibility<Integer, String> chain = new BatchChainOfResponsibility<>();
+		chain.add(() -> false, skipped::resolve);
+		chain.add(() -> true, database::resolve);
+		assertEquals(chain.resolveAll(Arrays.asList(1)).get(1), "v1");
+		assertTrue(skipped.requests.isEmpty());
+	}
+
+	@Test
+	public void nonDefaultTerminatingCondition() {
+		BatchChainOfResponsibility<Integer, Integer> chain = new BatchChainOfResponsibility<>(v -> null != v && v >= 3);
+		chain.add(keys -> Collections.singletonMap(1, 1));
+		chain.add(keys -> {
+			Map<Integer, Integer> values = new HashMap<>();
+			keys.forEach(k -> values.put(k, k + 2));
+			return values;
+		});
+		Map<Integer, Integer> resolved = chain.resolveAll(Arrays.asList(1, 2));
+		assertEquals(resolved, new HashMap<Integer, Integer>() {
+			{
+				put(1, 3);
+				put(2, 4);
+			}
+		});
+	}
+
+	@Test
+	public void nullAndUnrequestedAnswersIgnored() {
+		BatchChainOfResponsibility<Integer, String> chain = new BatchChainOfResponsibility<>();
+		chain.add(keys -> null);
+		chain.add(keys -> Collections.singletonMap(99, "v99"));
+		assertTrue(chain.resolveAll(Arrays.asList(1)).isEmpty());
+	}
+
+	@Test
+	public void consumeAll() {
+		BatchChainOfResponsibility<Integer, String> chain = new BatchChainOfResponsibility<>();
+		chain.add(new Tier(1, 2)::resolve);
+		Map<Integer, String> consumed = new LinkedHashMap<>();
+		chain.consumeAll(Arrays.asList(2, 1, 3), consumed::put);
+		assertEquals(new ArrayList<>(consumed.keySet()), Arrays.asList(2, 1));
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void resolveAll_addToFrozenList() {
+		BatchChainOfResponsibility<Integer, String> chain = new BatchChainOfResponsibility<>();
+		chain.add(keys -> null);
+		chain.resolveAll(Arrays.asList(1));
+		chain.add(keys -> null);
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void handlerCannotModifyBatch() {
+		BatchChainOfResponsibility<Integer, String> chain = new BatchChainOfResponsibility<>();
+		chain.add(keys -> {
+			keys.clear();
+			return null;
+		});
+		chain.resolveAll(Arrays.asList(1));
+	}
+
+	@Test
+	public void handlerKeepsItsKeys() {
+		BatchChainOfResponsibility<Integer, String> chain = new BatchChainOfResponsibility<>();
+		List<Collection<Integer>> kept = new ArrayList<>();
+		chain.add(keys -> {
+			kept.add(keys);
+			return Collections.singletonMap(1, "v1");
+		});
+		chain.add(keys -> {
+			kept.add(keys);
+			return Collections.singletonMap(2, "v2");
+		});
+		chain.resolveAll(Arrays.asList(1, 2, 3));
+		assertEquals(new ArrayList<>(kept.get(0)), Arrays.asList(1, 2, 3));
+		assertEquals(new ArrayList<>(kept.get(1)), Arrays.asList(2, 3));
+	}
+}
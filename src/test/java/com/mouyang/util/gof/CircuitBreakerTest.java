@@ -0,0 +1,283 @@
+package com.mouyang.util.gof;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.annotations.Test;
+
+import com.mouyang.util.gof.CircuitBreaker.Permit;
+import com.mouyang.util.gof.CircuitBreaker.State;
+
+public class CircuitBreakerTest {
+
+	private final AtomicLong now = new AtomicLong();
+
+	private CircuitBreaker.Builder builder() {
+		return CircuitBreaker.builder()
+			.minimumCalls(4)
+			.failureRateThreshold(0.5)
+			.slowCallThreshold(100, MILLISECONDS)
+			.openDuration(1, SECONDS)
+			.window(10, SECONDS, 10)
+			.halfOpenProbes(2)
+			.clock(now::get);
+	}
+
+	@Test
+	public void opensOnFailureRate() {
+		CircuitBreaker breaker = builder().build();
+		recordSuccess(breaker, 0);
+		recordSuccess(breaker, 0);
+		recordFailure(breaker, 0);
+		assertEquals(breaker.getState(), State.CLOSED, "below minimum calls");
+		recordFailure(breaker, 0);
+		assertEquals(breaker.getState(), State.OPEN);
+		assertNull(breaker.tryAcquire());
+	}
+
+	@Test
+	public void opensOnSlowCalls() {
+		CircuitBreaker breaker = builder().build();
+		recordSuccess(breaker, 0);
+		recordSuccess(breaker, 0);
+		recordSuccess(breaker, MILLISECONDS.toNanos(150));
+		recordSuccess(breaker, MILLISECONDS.toNanos(150));
+		assertEquals(breaker.getState(), State.OPEN);
+	}
+
+	@Test
+	public void oldCallsLeaveTheWindow() {
+		CircuitBreaker breaker = builder().build();
+		recordFailure(breaker, 0);
+		recordFailure(breaker, 0);
+		recordFailure(breaker, 0);
+		now.addAndGet(SECONDS.toNanos(11));
+		recordSuccess(breaker, 0);
+		recordSuccess(breaker, 0);
+		recordSuccess(breaker, 0);
+		recordFailure(breaker, 0);
+		assertEquals(breaker.getState(), State.CLOSED);
+	}
+
+	@Test
+	public void halfOpenProbesClose() {
+		CircuitBreaker breaker = tripped();
+		now.addAndGet(SECONDS.toNanos(1));
+		Permit first = breaker.tryAcquire();
+		assertNotNull(first);
+		assertEquals(breaker.getState(), State.HALF_OPEN);
+		Permit second = breaker.tryAcquire();
+		assertNotNull(second);
+		assertNull(breaker.tryAcquire(), "only two probes");
+		first.onSuccess(0);
+		assertEquals(breaker.getState(), State.HALF_OPEN);
+		second.onSuccess(0);
+		assertEquals(breaker.getState(), State.CLOSED);
+		// the failures that tripped the breaker are forgotten
+		recordFailure(breaker, 0);
+		assertEquals(breaker.getState(), State.CLOSED);
+	}
+
+	@Test
+	public void halfOpenFailureReopens() {
+		CircuitBreaker breaker = tripped();
+		now.addAndGet(SECONDS.toNanos(1));
+		breaker.tryAcquire().onFailure(0);
+		assertEquals(breaker.getState(), State.OPEN);
+		assertNull(breaker.tryAcquire());
+		now.addAndGet(SECONDS.toNanos(1));
+		assertNotNull(breaker.tryAcquire());
+	}
+
+	@Test
+	public void callsPermittedWhileClosedAreNotProbes() {
+		CircuitBreaker breaker = builder().build();
+		Permit closed = breaker.tryAcquire();
+		for (int i = 0; i < 4; i++) {
+			recordFailure(breaker, 0);
+		}
+		now.addAndGet(SECONDS.toNanos(1));
+		assertNotNull(breaker.tryAcquire());
+		closed.onSuccess(0);
+		closed.onSuccess(0);
+		assertEquals(breaker.getState(), State.HALF_OPEN);
+		closed.onFailure(0);
+		assertEquals(breaker.getState(), State.HALF_OPEN);
+	}
+
+	@Test
+	public void concurrentProbesAreLimited() throws Exception {
+		final int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (int round = 0; round < 200; round++) {
+				CircuitBreaker breaker = tripped();
+				now.addAndGet(SECONDS.toNanos(1));
+				CyclicBarrier barrier = new CyclicBarrier(threads);
+				List<Future<Permit>> permits = new ArrayList<>();
+				for (int i = 0; i < threads; i++) {
+					permits.add(executor.submit(() -> {
+						barrier.await();
+						return breaker.tryAcquire();
+					}));
+				}
+				int granted = 0;
+				for (Future<Permit> permit : permits) {
+					granted += null == permit.get() ? 0 : 1;
+				}
+				assertEquals(granted, 2, "round " + round);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void concurrentClosedCallsDoNotCloseHalfOpen() throws Exception {
+		final int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (int round = 0; round < 200; round++) {
+				CircuitBreaker breaker = builder().build();
+				List<Permit> closed = new ArrayList<>();
+				for (int i = 0; i < threads; i++) {
+					closed.add(breaker.tryAcquire());
+				}
+				for (int i = 0; i < 4; i++) {
+					recordFailure(breaker, 0);
+				}
+				now.addAndGet(SECONDS.toNanos(1));
+				Permit probe = breaker.tryAcquire();
+				CyclicBarrier barrier = new CyclicBarrier(threads);
+				List<Future<?>> calls = new ArrayList<>();
+				for (Permit permit : closed) {
+					calls.add(executor.submit(() -> {
+						barrier.await();
+						permit.onSuccess(0);
+						return null;
+					}));
+				}
+				for (Future<?> call : calls) {
+					call.get();
+				}
+				assertEquals(breaker.getState(), State.HALF_OPEN, "round " + round);
+				probe.onSuccess(0);
+				breaker.tryAcquire().onSuccess(0);
+				assertEquals(breaker.getState(), State.CLOSED, "round " + round);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void invalidRate() {
+		CircuitBreaker.builder().failureRateThreshold(0);
+	}
+
+	@Test
+	public void chainSkipsOpenBreaker() {
+		CircuitBreaker breaker = builder().build();
+		AtomicInteger calls = new AtomicInteger();
+		ChainOfResponsibility<String> chain = new ChainOfResponsibility<>();
+		chain.add(breaker, () -> {
+			calls.incrementAndGet();
+			throw new IllegalStateException("down");
+		});
+		chain.add(() -> "fallback");
+		for (int i = 0; i < 4; i++) {
+			try {
+				chain.findFirst();
+				fail("exception swallowed");
+			} catch (IllegalStateException e) {
+				assertEquals(e.getMessage(), "down");
+			}
+		}
+		for (int i = 0; i < 6; i++) {
+			assertEquals(chain.findFirst(), Optional.of("fallback"));
+		}
+		assertEquals(calls.get(), 4);
+		assertEquals(breaker.getState(), State.OPEN);
+	}
+
+	@Test
+	public void chainGuardedSupplierAnswers() {
+		CircuitBreaker breaker = builder().build();
+		ChainOfResponsibility<String> chain = new ChainOfResponsibility<>(s -> true);
+		chain.add(() -> false, breaker, () -> "skipped");
+		chain.add(breaker, () -> "guarded");
+		assertEquals(chain.findAll(), Arrays.asList("guarded"));
+	}
+
+	@Test
+	public void chainPropagatesExceptions() {
+		CircuitBreaker breaker = builder().build();
+		IllegalStateException thrown = new IllegalStateException();
+		ChainOfResponsibility<String> chain = new ChainOfResponsibility<>();
+		chain.add(breaker, () -> {
+			throw thrown;
+		});
+		chain.add(() -> "fallback");
+		try {
+			chain.findFirst();
+			fail("exception swallowed");
+		} catch (IllegalStateException e) {
+			assertSame(e, thrown);
+		}
+		// recorded by the breaker as well as propagated
+		for (int i = 0; i < 3; i++) {
+			try {
+				chain.findFirst();
+			} catch (IllegalStateException e) {
+				// expected
+			}
+		}
+		assertEquals(breaker.getState(), State.OPEN);
+	}
+
+	@Test
+	public void chainReportsErrors() {
+		CircuitBreaker breaker = tripped();
+		now.addAndGet(SECONDS.toNanos(1));
+		ChainOfResponsibility<String> chain = new ChainOfResponsibility<>();
+		chain.add(breaker, () -> {
+			throw new AssertionError();
+		});
+		try {
+			chain.findFirst();
+			fail("error swallowed");
+		} catch (AssertionError e) {
+			// the probe is reported, rather than held by the half open breaker for good
+			assertEquals(breaker.getState(), State.OPEN);
+		}
+	}
+
+	private static void recordSuccess(CircuitBreaker breaker, long durationNanos) {
+		breaker.tryAcquire().onSuccess(durationNanos);
+	}
+
+	private static void recordFailure(CircuitBreaker breaker, long durationNanos) {
+		breaker.tryAcquire().onFailure(durationNanos);
+	}
+
+	private CircuitBreaker tripped() {
+		CircuitBreaker breaker = builder().build();
+		for (int i = 0; i < 4; i++) {
+			recordFailure(breaker, 0);
+		}
+		assertEquals(breaker.getState(), State.OPEN);
+		return breaker;
+	}
+}
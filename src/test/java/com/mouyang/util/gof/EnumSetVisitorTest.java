@@ -0,0 +1,175 @@
+package com.mouyang.util.gof;
+
+import static com.mouyang.util.AllocationAssertions.assertNoAllocation;
+import static org.testng.Assert.*;
+
+import java.util.EnumSet;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class EnumSetVisitorTest {
+
+	private enum Flag { BOLD, ITALIC, UNDERLINE }
+
+	private enum Wide {
+		W00, W01, W02, W03, W04, W05, W06, W07, W08, W09, W10, W11, W12, W13, W14, W15, W16, W17, W18, W19
+	}
+
+	private enum TooWide {
+		T00, T01, T02, T03, T04, T05, T06, T07, T08, T09, T10, T11, T12, T13, T14, T15,
+		T16, T17, T18, T19, T20, T21, T22, T23, T24, T25, T26, T27, T28, T29, T30, T31,
+		T32, T33, T34, T35, T36, T37, T38, T39, T40, T41, T42, T43, T44, T45, T46, T47,
+		T48, T49, T50, T51, T52, T53, T54, T55, T56, T57, T58, T59, T60, T61, T62, T63,
+		T64
+	}
+
+	@Test
+	public void exactAndFallback() {
+		EnumSetVisitor<Flag, String> visitor = EnumSetVisitor.<Flag, String>builder(Flag.class)
+			.addHandler("plain")
+			.addHandler("bold", Flag.BOLD)
+			.addHandler("bold italic", Flag.BOLD, Flag.ITALIC)
+			.build();
+		assertEquals(visitor.visit(EnumSet.noneOf(Flag.class)), "plain");
+		assertEquals(visitor.visit(EnumSet.of(Flag.BOLD)), "bold");
+		assertEquals(visitor.visit(EnumSet.of(Flag.BOLD, Flag.ITALIC)), "bold italic");
+		assertEquals(visitor.visit(EnumSet.allOf(Flag.class)), "bold italic");
+		assertEquals(visitor.visit(EnumSet.of(Flag.BOLD, Flag.UNDERLINE)), "bold");
+		assertEquals(visitor.visit(EnumSet.of(Flag.ITALIC)), "plain");
+	}
+
+	@Test
+	public void tiesGoToFirstDeclared() {
+		EnumSetVisitor<Flag, String> visitor = EnumSetVisitor.<Flag, String>builder(Flag.class)
+			.addHandler("italic", Flag.ITALIC)
+			.addHandler("bold", Flag.BOLD)
+			.build();
+		assertEquals(visitor.visit(EnumSet.of(Flag.BOLD, Flag.ITALIC)), "italic");
+		assertNull(visitor.visit(EnumSet.of(Flag.UNDERLINE)));
+	}
+
+	@Test
+	public void replacedHandlerKeepsItsPlace() {
+		EnumSetVisitor<Flag, String> visitor = EnumSetVisitor.<Flag, String>builder(Flag.class)
+			.addHandler("italic", Flag.ITALIC)
+			.addHandler("bold", Flag.BOLD)
+			.addHandler("emphasis", Flag.ITALIC)
+			.build();
+		assertEquals(visitor.visit(EnumSet.of(Flag.BOLD, Flag.ITALIC)), "emphasis");
+	}
+
+	@Test
+	public void expectedCombinationsResolve() {
+		EnumSetVisitor.<Flag, String>builder(Flag.class)
+			.addHandler("bold", Flag.BOLD)
+			.expect(Flag.BOLD)
+			.expect(Flag.BOLD, Flag.UNDERLINE)
+			.build();
+	}
+
+	@Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ".*\\[ITALIC\\+UNDERLINE\\].*")
+	public void expectedCombinationUnhandled() {
+		EnumSetVisitor.<Flag, String>builder(Flag.class)
+			.addHandler("bold", Flag.BOLD)
+			.expect(Flag.BOLD, Flag.ITALIC)
+			.expect(Flag.ITALIC, Flag.UNDERLINE)
+			.build();
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void moreThan64Values() {
+		EnumSetVisitor.builder(TooWide.class);
+	}
+
+	@DataProvider
+	public Object[][] wideSets() {
+		return new Object[][] {
+			{ EnumSet.noneOf(Wide.class), "none" },
+			{ EnumSet.of(Wide.W03), "3" },
+			{ EnumSet.of(Wide.W03, Wide.W19), "3+19" },
+			{ EnumSet.of(Wide.W03, Wide.W19, Wide.W07), "3+19" },
+			{ EnumSet.of(Wide.W07, Wide.W12), "7+12" },
+			{ EnumSet.of(Wide.W07, Wide.W12, Wide.W03, Wide.W19), "3+19" },
+			{ EnumSet.of(Wide.W07, Wide.W12, Wide.W03, Wide.W19, Wide.W00), "0+7+12" },
+			{ EnumSet.of(Wide.W18), "none" },
+		};
+	}
+
+	@Test(dataProvider = "wideSets")
+	public void perfectHash(EnumSet<Wide> set, String expected) {
+		EnumSetVisitor<Wide, String> visitor = EnumSetVisitor.<Wide, String>builder(Wide.class)
+			.addHandler("none")
+			.addHandler("3", Wide.W03)
+			.addHandler("3+19", Wide.W03, Wide.W19)
+			.addHandler("7+12", Wide.W07, Wide.W12)
+			.addHandler("0+7+12", Wide.W00, Wide.W07, Wide.W12)
+			.build();
+		assertEquals(visitor.visit(set), expected);
+	}
+
+	@Test
+	public void perfectHashManyCombinations() {
+		EnumSetVisitor.EnumSetVisitorBuilder<Wide, Long> builder = EnumSetVisitor.builder(Wide.class);
+		for (Wide a : Wide.values()) {
+			for (Wide b : Wide.values()) {
+				if (a.ordinal() < b.ordinal()) {
+					builder.addHandler(EnumSetVisitor.mask(EnumSet.of(a, b)), a, b);
+				}
+			}
+		}
+		EnumSetVisitor<Wide, Long> visitor = builder.build();
+		// too many combinations for a perfect hash in a table of bounded size
+		assertFalse(visitor.isPerfectlyHashed());
+		assertNull(visitor.visit(EnumSetVisitor.mask(EnumSet.of(Wide.W04))));
+		assertEquals(visitor.visit(EnumSetVisitor.mask(EnumSet.of(Wide.W00, Wide.W01, Wide.W02))),
+			Long.valueOf(EnumSetVisitor.mask(EnumSet.of(Wide.W00, Wide.W01))));
+		for (Wide a : Wide.values()) {
+			for (Wide b : Wide.values()) {
+				if (a.ordinal() < b.ordinal()) {
+					final long mask = EnumSetVisitor.mask(EnumSet.of(a, b));
+					assertEquals(visitor.visit(mask), Long.valueOf(mask));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void fewCombinationsArePerfectlyHashed() {
+		assertTrue(EnumSetVisitor.<Wide, String>builder(Wide.class)
+			.addHandler("3", Wide.W03)
+			.addHandler("3+19", Wide.W03, Wide.W19)
+			.build()
+			.isPerfectlyHashed());
+	}
+
+	@DataProvider
+	public Object[][] invalidMasks() {
+		return new Object[][] {
+			{ EnumSetVisitor.<Flag, String>builder(Flag.class).addHandler("plain").build(), 1L << 3 },
+			{ EnumSetVisitor.<Wide, String>builder(Wide.class).addHandler("none").build(), 1L << 20 },
+			{ EnumSetVisitor.<Wide, String>builder(Wide.class).addHandler("none").build(), -1L },
+		};
+	}
+
+	@Test(dataProvider = "invalidMasks", expectedExceptions = IllegalArgumentException.class)
+	public void maskBeyondEnum(EnumSetVisitor<?, String> visitor, long mask) {
+		visitor.visit(mask);
+	}
+
+	@Test
+	public void visitDoesNotAllocate() {
+		EnumSetVisitor<Flag, String> dense = EnumSetVisitor.<Flag, String>builder(Flag.class)
+			.addHandler("bold", Flag.BOLD)
+			.build();
+		EnumSetVisitor<Wide, String> hashed = EnumSetVisitor.<Wide, String>builder(Wide.class)
+			.addHandler("3+19", Wide.W03, Wide.W19)
+			.build();
+		final long flags = EnumSetVisitor.mask(EnumSet.of(Flag.BOLD, Flag.ITALIC));
+		final long wide = EnumSetVisitor.mask(EnumSet.of(Wide.W03, Wide.W19));
+		assertNoAllocation(() -> {
+			dense.visit(flags);
+			hashed.visit(wide);
+		});
+	}
+}
@@ -1,5 +1,6 @@
 package com.mouyang.util.gof;
 
+import static com.mouyang.util.AllocationAssertions.assertNoAllocation;
 import static java.util.Arrays.asList;
 import static org.testng.Assert.assertFalse;
 
@@ -60,4 +61,16 @@ public class EnumVisitorTest {
 		assertFalse(supportedClasses.contains(Object.class));
 		AbstractEnumVisitorBuilderFactory.newInstance(TestEnum.class, Object.class);
 	}
+	
+	@Test
+	public void visit_allocationFree() {
+		EnumVisitor<TestEnum, Runnable> visitor = AbstractEnumVisitorBuilderFactory.newInstance(TestEnum.class, Runnable.class)
+			.addHandler(() -> {}, TestEnum.A)
+			.addHandler(() -> {}, TestEnum.B)
+			.build();
+		assertNoAllocation(() -> {
+			visitor.visit(TestEnum.A).run();
+			visitor.visit(TestEnum.B).run();
+		});
+	}
 }
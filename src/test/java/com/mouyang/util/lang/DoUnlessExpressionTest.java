@@ -4,7 +4,13 @@ import static com.mouyang.util.lang.DoUnlessExpression._do;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.testng.Assert.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BooleanSupplier;
 
 import org.testng.annotations.Test;
@@ -85,4 +91,45 @@ public class DoUnlessExpressionTest {
 		);
 		verify(testMock).run();
 	}
+
+	@Test
+	public void unlessAsync_satisfied() {
+		final AtomicInteger runs = new AtomicInteger();
+		CompletableFuture<Void> future = _do(runs::incrementAndGet).unlessAsync(
+			runnable -> fail("nothing should be executed")
+			, () -> false
+			, () -> true
+		);
+		assertTrue(future.isDone());
+		assertFalse(future.isCompletedExceptionally());
+		assertEquals(runs.get(), 0);
+	}
+
+	@Test
+	public void unlessAsync_runsOnExecutor() {
+		final AtomicInteger runs = new AtomicInteger();
+		final List<Runnable> submitted = new ArrayList<>();
+		CompletableFuture<Void> future = _do(runs::incrementAndGet).unlessAsync(submitted::add, () -> false);
+		assertEquals(submitted.size(), 1);
+		assertFalse(future.isDone(), "the block waits for the executor");
+		assertEquals(runs.get(), 0);
+		submitted.get(0).run();
+		assertTrue(future.isDone());
+		assertEquals(runs.get(), 1);
+	}
+
+	@Test
+	public void unlessAsync_blockThrows() throws InterruptedException {
+		final IllegalStateException thrown = new IllegalStateException();
+		CompletableFuture<Void> future = _do(() -> {
+			throw thrown;
+		}).unlessAsync(Runnable::run);
+		assertTrue(future.isCompletedExceptionally());
+		try {
+			future.get();
+			fail("the future should complete exceptionally");
+		} catch (ExecutionException e) {
+			assertSame(e.getCause(), thrown);
+		}
+	}
 }
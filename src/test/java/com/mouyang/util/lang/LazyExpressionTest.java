@@ -0,0 +1,151 @@
+package com.mouyang.util.lang;
+
+import static com.mouyang.util.lang.LazyExpression._lazy;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.Test;
+
+public class LazyExpressionTest {
+
+	@Test
+	public void computedOnce() {
+		AtomicInteger computations = new AtomicInteger();
+		LazyExpression<Integer> lazy = _lazy(computations::incrementAndGet);
+		assertFalse(lazy.isInitialized());
+		assertEquals(computations.get(), 0);
+		assertEquals((int) lazy.get(), 1);
+		assertEquals((int) lazy.get(), 1);
+		assertTrue(lazy.isInitialized());
+		assertEquals(computations.get(), 1);
+	}
+
+	@Test
+	public void nullIsAValue() {
+		AtomicInteger computations = new AtomicInteger();
+		LazyExpression<Object> lazy = _lazy(() -> {
+			computations.incrementAndGet();
+			return null;
+		});
+		lazy.get();
+		lazy.get();
+		assertEquals(computations.get(), 1);
+	}
+
+	@Test
+	public void reset() {
+		AtomicInteger computations = new AtomicInteger();
+		LazyExpression<Integer> lazy = _lazy(computations::incrementAndGet);
+		lazy.get();
+		lazy.reset();
+		assertFalse(lazy.isInitialized());
+		assertEquals((int) lazy.get(), 2);
+	}
+
+	@Test
+	public void expires() throws InterruptedException {
+		AtomicInteger computations = new AtomicInteger();
+		LazyExpression<Integer> lazy = _lazy(computations::incrementAndGet, 1, MILLISECONDS);
+		lazy.get();
+		Thread.sleep(5);
+		assertFalse(lazy.isInitialized());
+		assertEquals((int) lazy.get(), 2);
+	}
+
+	@Test
+	public void doesNotExpireWithinTtl() {
+		AtomicInteger computations = new AtomicInteger();
+		LazyExpression<Integer> lazy = _lazy(computations::incrementAndGet, 1, HOURS);
+		lazy.get();
+		lazy.get();
+		assertEquals(computations.get(), 1);
+	}
+
+	@Test
+	public void failureIsRetried() {
+		AtomicInteger computations = new AtomicInteger();
+		LazyExpression<Integer> lazy = _lazy(() -> {
+			if (1 == computations.incrementAndGet()) {
+				throw new IllegalStateException();
+			}
+			return computations.get();
+		});
+		try {
+			lazy.get();
+			fail();
+		} catch (IllegalStateException e) {
+		}
+		assertEquals((int) lazy.get(), 2);
+	}
+
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void recursiveInitialization() {
+		AtomicReference<LazyExpression<Integer>> self = new AtomicReference<>();
+		self.set(_lazy(() -> self.get().get()));
+		self.get().get();
+	}
+
+	@Test(timeOut = 30_000)
+	public void concurrentCallersShareOneComputation() throws Exception {
+		final int threads = 8;
+		AtomicInteger computations = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		LazyExpression<Integer> lazy = _lazy(() -> {
+			try {
+				started.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return computations.incrementAndGet();
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Integer>> futures = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(lazy::get));
+			}
+			started.countDown();
+			for (Future<Integer> future : futures) {
+				assertEquals((int) future.get(), 1);
+			}
+			assertEquals(computations.get(), 1);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test(timeOut = 30_000)
+	public void fastComputationIsNotRepeated() throws Exception {
+		final int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (int round = 0; round < 500; round++) {
+				AtomicInteger computations = new AtomicInteger();
+				LazyExpression<Integer> lazy = _lazy(computations::incrementAndGet);
+				CyclicBarrier barrier = new CyclicBarrier(threads);
+				List<Future<Integer>> futures = new ArrayList<>();
+				for (int i = 0; i < threads; i++) {
+					futures.add(executor.submit(() -> {
+						barrier.await();
+						return lazy.get();
+					}));
+				}
+				for (Future<Integer> future : futures) {
+					assertEquals((int) future.get(), 1, "round " + round);
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package com.mouyang.util.lang;
+
+import static com.mouyang.util.lang.MatchExpression._match;
+import static org.testng.Assert.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.mouyang.util.lang.MatchExpression.Matcher;
+
+public class MatchExpressionTest {
+
+	private static final Matcher<Integer, String> STATUS = MatchExpression.<Integer, String>_match()
+		.when(200, s -> "ok")
+		.when(404, s -> "not found")
+		.whenBetween(500, 599, s -> "server error")
+		.when(s -> s >= 400 && s < 500, s -> "client error")
+		.whenBetween(100, 199, s -> "informational")
+		.otherwise(s -> "unknown " + s);
+
+	@DataProvider
+	public Object[][] statuses() {
+		return new Object[][] {
+			{ 200, "ok" },
+			{ 404, "not found" },
+			{ 500, "server error" },
+			{ 550, "server error" },
+			{ 599, "server error" },
+			{ 400, "client error" },
+			{ 499, "client error" },
+			{ 100, "informational" },
+			{ 199, "informational" },
+			{ 99, "unknown 99" },
+			{ 201, "unknown 201" },
+			{ 600, "unknown 600" },
+		};
+	}
+
+	@Test(dataProvider = "statuses")
+	public void status(int status, String expected) {
+		assertEquals(STATUS.apply(status), expected);
+	}
+
+	@Test
+	public void firstDeclaredCaseWins() {
+		Matcher<Integer, String> matcher = MatchExpression.<Integer, String>_match()
+			.when(i -> i > 10, i -> "predicate")
+			.when(20, i -> "constant")
+			.whenBetween(30, 40, i -> "range")
+			.when(5, i -> "constant")
+			.when(5, i -> "duplicate")
+			.otherwise(i -> "otherwise");
+		assertEquals(matcher.apply(20), "predicate");
+		assertEquals(matcher.apply(35), "predicate");
+		assertEquals(matcher.apply(5), "constant");
+		assertEquals(matcher.apply(0), "otherwise");
+	}
+
+	@Test
+	public void laterPredicatesNotTested() {
+		AtomicInteger tests = new AtomicInteger();
+		Matcher<Integer, String> matcher = MatchExpression.<Integer, String>_match()
+			.when(1, i -> "one")
+			.when(i -> tests.incrementAndGet() > 0, i -> "predicate")
+			.otherwise(i -> "otherwise");
+		assertEquals(matcher.apply(1), "one");
+		assertEquals(tests.get(), 0);
+		assertEquals(matcher.apply(2), "predicate");
+		assertEquals(tests.get(), 1);
+	}
+
+	@Test
+	public void sparseConstants() {
+		Matcher<Integer, String> matcher = MatchExpression.<Integer, String>_match()
+			.when(Integer.MIN_VALUE, i -> "min")
+			.when(Integer.MAX_VALUE, i -> "max")
+			.otherwise(i -> "otherwise");
+		assertEquals(matcher.apply(Integer.MIN_VALUE), "min");
+		assertEquals(matcher.apply(Integer.MAX_VALUE), "max");
+		assertEquals(matcher.apply(0), "otherwise");
+	}
+
+	@Test
+	public void nonIntegerConstants() {
+		Matcher<String, Integer> matcher = MatchExpression.<String, Integer>_match()
+			.when("a", s -> 1)
+			.when((String) null, s -> 0)
+			.whenBetween("m", "p", s -> 2)
+			.otherwise(s -> -1);
+		assertEquals((int) matcher.apply("a"), 1);
+		assertEquals((int) matcher.apply(null), 0);
+		assertEquals((int) matcher.apply("n"), 2);
+		assertEquals((int) matcher.apply("z"), -1);
+	}
+
+	@Test
+	public void noCases() {
+		Matcher<Object, String> matcher = MatchExpression.<Object, String>_match().otherwise(o -> "otherwise");
+		assertEquals(matcher.apply(null), "otherwise");
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void overlappingRanges() {
+		MatchExpression.<Integer, String>_match()
+			.whenBetween(1, 10, i -> "a")
+			.whenBetween(10, 20, i -> "b")
+			.otherwise(i -> "otherwise");
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void emptyRange() {
+		_match().whenBetween(10, 1, i -> "a");
+	}
+}
@@ -0,0 +1,72 @@
+package com.mouyang.util.lang;
+
+import static com.mouyang.util.AllocationAssertions.assertNoAllocation;
+import static com.mouyang.util.lang.PreparedUnless.prepare;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.function.BooleanSupplier;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class PreparedUnlessTest {
+
+	private static final BooleanSupplier FALSE = () -> false;
+	private static final BooleanSupplier TRUE = () -> true;
+
+	private static int runs;
+	private static final Runnable COUNTER = () -> runs++;
+
+	@DataProvider
+	public Object[][] arities() {
+		return new Object[][] { { 0 }, { 1 }, { 2 }, { 3 }, { 4 }, { 10 } };
+	}
+
+	@Test
+	public void nullInput() {
+		assertFalse(prepare((BooleanSupplier[]) null).getAsBoolean());
+	}
+
+	@Test
+	public void nullsIgnored() {
+		assertFalse(prepare(null, FALSE, null).getAsBoolean());
+		assertTrue(prepare(null, FALSE, null, TRUE).getAsBoolean());
+	}
+
+	@Test(dataProvider = "arities")
+	public void allFalse(int arity) {
+		assertFalse(prepare(conditions(arity, -1)).getAsBoolean());
+	}
+
+	@Test(dataProvider = "arities")
+	public void anyTrue(int arity) {
+		for (int i = 0; i < arity; i++) {
+			assertTrue(prepare(conditions(arity, i)).getAsBoolean());
+		}
+	}
+
+	@Test
+	public void run() {
+		runs = 0;
+		prepare(FALSE, FALSE).run(COUNTER);
+		assertEquals(runs, 1);
+		prepare(FALSE, TRUE).run(COUNTER);
+		assertEquals(runs, 1);
+	}
+
+	@Test(dataProvider = "arities")
+	public void allocationFree(int arity) {
+		PreparedUnless prepared = prepare(conditions(arity, -1));
+		assertNoAllocation(() -> prepared.run(COUNTER));
+	}
+
+	private static BooleanSupplier[] conditions(int arity, int trueIndex) {
+		BooleanSupplier[] conditions = new BooleanSupplier[arity];
+		for (int i = 0; i < arity; i++) {
+			conditions[i] = (i == trueIndex) ? TRUE : FALSE;
+		}
+		return conditions;
+	}
+}
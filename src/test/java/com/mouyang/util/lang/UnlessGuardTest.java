@@ -0,0 +1,219 @@
+package com.mouyang.util.lang;
+
+import static com.mouyang.util.lang.DoUnlessExpression._do;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+public class UnlessGuardTest {
+
+	@Test
+	public void none() {
+		AtomicInteger runs = new AtomicInteger();
+		_do(runs::incrementAndGet).unless(UnlessGuard.builder().build());
+		assertEquals(runs.get(), 1);
+	}
+
+	@Test
+	public void nullConditionsIgnored() {
+		AtomicInteger runs = new AtomicInteger();
+		_do(runs::incrementAndGet).unless(UnlessGuard.builder()
+			.condition(null)
+			.expensiveCondition(null)
+			.condition(() -> false)
+			.build());
+		assertEquals(runs.get(), 1);
+	}
+
+	@Test
+	public void anyTrue() {
+		AtomicInteger runs = new AtomicInteger();
+		UnlessGuard guard = UnlessGuard.builder()
+			.condition(() -> false)
+			.expensiveCondition(() -> true)
+			.build();
+		_do(runs::incrementAndGet).unless(guard);
+		assertEquals(runs.get(), 0);
+	}
+
+	@Test
+	public void cachedWithinTtl() {
+		AtomicInteger evaluations = new AtomicInteger();
+		UnlessGuard guard = UnlessGuard.builder()
+			.condition(() -> evaluations.incrementAndGet() < 0, 1, HOURS)
+			.build();
+		for (int i = 0; i < 10; i++) {
+			assertFalse(guard.getAsBoolean());
+		}
+		assertEquals(evaluations.get(), 1);
+	}
+
+	@Test
+	public void notCachedWithoutTtl() {
+		AtomicInteger evaluations = new AtomicInteger();
+		UnlessGuard guard = UnlessGuard.builder()
+			.condition(() -> evaluations.incrementAndGet() < 0)
+			.build();
+		for (int i = 0; i < 10; i++) {
+			assertFalse(guard.getAsBoolean());
+		}
+		assertEquals(evaluations.get(), 10);
+	}
+
+	@Test
+	public void frequentlySatisfiedConditionMovesFirst() {
+		AtomicInteger neverSatisfied = new AtomicInteger();
+		UnlessGuard guard = UnlessGuard.builder()
+			.condition(() -> {
+				neverSatisfied.incrementAndGet();
+				busyWait(20_000);
+				return false;
+			})
+			.condition(() -> {
+				busyWait(20_000);
+				return true;
+			})
+			.build();
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(guard.getAsBoolean());
+		}
+		assertTrue(neverSatisfied.get() < 500, "evaluated " + neverSatisfied.get() + " times");
+	}
+
+	@Test(timeOut = 10_000)
+	public void concurrentShortCircuitsOnFirstTrue() throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			UnlessGuard guard = UnlessGuard.builder()
+				.expensiveCondition(() -> {
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return false;
+				})
+				.expensiveCondition(() -> true)
+				.concurrently(executor)
+				.build();
+			assertTrue(guard.getAsBoolean());
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void concurrentAllFalse() {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			UnlessGuard guard = UnlessGuard.builder()
+				.expensiveCondition(() -> false)
+				.expensiveCondition(() -> false)
+				.expensiveCondition(() -> false)
+				.concurrently(executor)
+				.build();
+			assertFalse(guard.getAsBoolean());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test(timeOut = 10_000)
+	public void runningConditionIsNotSubmittedAgain() throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger slowCalls = new AtomicInteger();
+		try {
+			UnlessGuard guard = UnlessGuard.builder()
+				.expensiveCondition(() -> {
+					slowCalls.incrementAndGet();
+					started.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return false;
+				})
+				.expensiveCondition(() -> true)
+				.concurrently(executor)
+				.build();
+			for (int i = 0; i < 10; i++) {
+				assertTrue(guard.getAsBoolean());
+			}
+			started.await();
+			assertEquals(slowCalls.get(), 1);
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test(timeOut = 10_000)
+	public void concurrentFailureIgnoredWhenSatisfied() {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			UnlessGuard guard = UnlessGuard.builder()
+				.expensiveCondition(() -> {
+					throw new IllegalStateException("unreachable");
+				})
+				.expensiveCondition(() -> true)
+				.concurrently(executor)
+				.build();
+			for (int i = 0; i < 10; i++) {
+				assertTrue(guard.getAsBoolean());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test(timeOut = 10_000)
+	public void concurrentFailureWhenNoneSatisfied() {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			UnlessGuard guard = UnlessGuard.builder()
+				.expensiveCondition(() -> {
+					throw new IllegalStateException("unreachable");
+				})
+				.expensiveCondition(() -> false)
+				.concurrently(executor)
+				.build();
+			guard.getAsBoolean();
+			fail("failure swallowed");
+		} catch (CompletionException e) {
+			assertEquals(e.getCause().getMessage(), "unreachable");
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test(timeOut = 10_000)
+	public void concurrentDefaultExecutor() {
+		UnlessGuard guard = UnlessGuard.builder()
+			.expensiveCondition(() -> false)
+			.expensiveCondition(() -> true)
+			.concurrently()
+			.build();
+		assertTrue(guard.getAsBoolean());
+	}
+
+	private static void busyWait(long nanos) {
+		long end = System.nanoTime() + nanos;
+		while (System.nanoTime() < end) {
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com.mouyang.util.nio;
+
+import static com.mouyang.util.lang.WithExpression._withBuffer;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import org.testng.annotations.Test;
+
+public class BufferArenaTest {
+
+	@Test
+	public void allocate() {
+		BufferArena arena = new BufferArena(64);
+		ByteBuffer first = arena.allocate(3);
+		ByteBuffer second = arena.allocate(8);
+		assertTrue(first.isDirect());
+		assertEquals(first.position(), 0);
+		assertEquals(first.remaining(), 3);
+		assertEquals(second.remaining(), 8);
+		assertEquals(arena.mark(), 16);
+		second.putLong(0, -1L);
+		assertEquals(first.get(0), 0);
+	}
+
+	@Test
+	public void nestedScopesReleaseInOrder() {
+		BufferArena arena = new BufferArena(64);
+		_withBuffer(arena, 16, outer -> {
+			assertEquals(arena.mark(), 16);
+			_withBuffer(arena, 32, inner -> {
+				assertEquals(arena.mark(), 48);
+				arena.allocate(8);
+			});
+			assertEquals(arena.mark(), 16);
+		});
+		assertEquals(arena.mark(), 0);
+	}
+
+	@Test
+	public void releasedWhenConsumerThrows() {
+		BufferArena arena = new BufferArena(64);
+		try {
+			_withBuffer(arena, 16, buffer -> {
+				throw new IllegalStateException();
+			});
+			fail();
+		} catch (IllegalStateException e) {
+		}
+		assertEquals(arena.mark(), 0);
+	}
+
+	@Test(expectedExceptions = BufferOverflowException.class)
+	public void bounded() {
+		BufferArena arena = new BufferArena(64);
+		_withBuffer(arena, 60, outer -> arena.allocate(8));
+	}
+
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void resetOutOfOrder() {
+		BufferArena arena = new BufferArena(64);
+		int outer = arena.mark();
+		arena.allocate(8);
+		int inner = arena.mark();
+		arena.allocate(8);
+		arena.reset(outer);
+		arena.reset(inner);
+	}
+
+	@Test
+	public void perThread() throws InterruptedException {
+		BufferArena arena = new BufferArena(64);
+		arena.allocate(32);
+		int[] otherMark = new int[1];
+		Thread thread = new Thread(() -> otherMark[0] = arena.mark());
+		thread.start();
+		thread.join();
+		assertEquals(otherMark[0], 0);
+		assertEquals(arena.mark(), 32);
+	}
+}
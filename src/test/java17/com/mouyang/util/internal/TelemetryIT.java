@@ -0,0 +1,138 @@
+package com.mouyang.util.internal;
+
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.Test;
+
+import com.mouyang.util.combinatorics.IndexDimensionIterator;
+import com.mouyang.util.function.PredicateFactory;
+import com.mouyang.util.gof.ChainOfResponsibility;
+import com.mouyang.util.gof.EnumVisitor;
+import com.mouyang.util.gof.EnumVisitor.AbstractEnumVisitorBuilderFactory;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class TelemetryIT {
+
+	private static final String CHAIN_WALK = "com.mouyang.util.ChainWalk";
+	private static final String ENUM_DISPATCH = "com.mouyang.util.EnumDispatch";
+	private static final String PREDICATE_EVALUATION = "com.mouyang.util.PredicateEvaluation";
+	private static final String ITERATOR_PROGRESS = "com.mouyang.util.IteratorProgress";
+	private static final List<String> EVENTS = Arrays.asList(
+		CHAIN_WALK, ENUM_DISPATCH, PREDICATE_EVALUATION, ITERATOR_PROGRESS);
+
+	private enum Color { RED, GREEN }
+
+	@Test
+	public void loadedFromMultiReleaseJar() {
+		assertTrue(Telemetry.class.getResource("Telemetry.class").toString().contains("META-INF/versions/17"));
+	}
+
+	@Test
+	public void enabledEventsAreRecorded() throws Exception {
+		List<RecordedEvent> events = record(true);
+		for (String name : EVENTS) {
+			assertTrue(events.stream().anyMatch(event -> name.equals(event.getEventType().getName())), name);
+		}
+		// a period may end part way through the dispatches
+		assertEquals(named(events, ENUM_DISPATCH).stream()
+			.filter(event -> Color.class.getName().equals(event.getClass("enumClass").getName()))
+			.peek(event -> assertEquals(event.getString("constant"), "RED"))
+			.mapToLong(event -> event.getLong("count"))
+			.sum(), 1000);
+	}
+
+	@Test
+	public void disabledEventsAreNotRecorded() throws Exception {
+		List<RecordedEvent> events = record(false);
+		for (String name : EVENTS) {
+			assertTrue(named(events, name).isEmpty(), name);
+		}
+	}
+
+	@Test
+	public void onlyOutermostCompositeIsRecorded() throws Exception {
+		try (Recording recording = new Recording()) {
+			recording.enable(PREDICATE_EVALUATION).withThreshold(Duration.ZERO);
+			recording.start();
+			@SuppressWarnings("unchecked")
+			Predicate<Integer> nested = PredicateFactory.allOf(
+				PredicateFactory.anyOf(i -> i > 0, i -> i < 0),
+				i -> true);
+			for (int i = 1; i <= 3; i++) {
+				nested.test(i);
+			}
+			recording.stop();
+			List<RecordedEvent> events = named(read(recording), PREDICATE_EVALUATION);
+			assertEquals(events.size(), 3);
+			assertTrue(events.stream().allMatch(event -> "allOf".equals(event.getString("kind"))));
+		}
+	}
+
+	private static List<RecordedEvent> record(boolean enabled) throws Exception {
+		try (Recording recording = new Recording()) {
+			if (enabled) {
+				recording.enable(CHAIN_WALK).withThreshold(Duration.ZERO);
+				recording.enable(ENUM_DISPATCH).withPeriod(Duration.ofMillis(100));
+				recording.enable(PREDICATE_EVALUATION).withThreshold(Duration.ZERO);
+				recording.enable(ITERATOR_PROGRESS);
+			}
+			recording.start();
+			exercise();
+			// long enough for the periodic dispatch summary
+			Thread.sleep(500);
+			recording.stop();
+			return read(recording);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void exercise() {
+		ChainOfResponsibility<String> chain = new ChainOfResponsibility<>();
+		chain.add(() -> null);
+		chain.add(() -> "answer");
+		chain.findFirst();
+
+		PredicateFactory.allOf((Integer i) -> i > 0, i -> i < 10).test(5);
+
+		EnumVisitor<Color, Runnable> visitor = AbstractEnumVisitorBuilderFactory.newInstance(Color.class, Runnable.class)
+			.addHandler(() -> {}, Color.RED)
+			.addHandler(() -> {}, Color.GREEN)
+			.build();
+		for (int i = 0; i < 1000; i++) {
+			visitor.visit(Color.RED);
+		}
+
+		IndexDimensionIterator iterator = new IndexDimensionIterator(new int[] { 512, 512 });
+		while (iterator.hasNext()) {
+			iterator.next();
+		}
+	}
+
+	private static List<RecordedEvent> read(Recording recording) throws IOException {
+		Path file = Files.createTempFile("telemetry", ".jfr");
+		try {
+			recording.dump(file);
+			return RecordingFile.readAllEvents(file);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+		return events.stream()
+			.filter(event -> name.equals(event.getEventType().getName()))
+			.collect(Collectors.toList());
+	}
+}
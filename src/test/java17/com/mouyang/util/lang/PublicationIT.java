@@ -0,0 +1,89 @@
+package com.mouyang.util.lang;
+
+import static com.mouyang.util.lang.LazyExpression._lazy;
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+public class PublicationIT {
+
+	private static final int THREADS = 8;
+
+	@Test
+	public void loadedFromMultiReleaseJar() {
+		assertTrue(Publication.class.getResource("Publication.class").toString().contains("META-INF/versions/17"));
+	}
+
+	@Test
+	public void publishAndRelease() {
+		Publication<String, Object> publication = new Publication<>();
+		assertNull(publication.published());
+		publication.publish("value");
+		assertEquals(publication.published(), "value");
+		Object claim = new Object();
+		assertTrue(publication.claim(claim));
+		assertSame(publication.pending(), claim);
+		assertFalse(publication.claim(new Object()));
+		publication.release();
+		assertNull(publication.pending());
+		assertTrue(publication.claim(new Object()));
+	}
+
+	@Test
+	public void oneClaimWins() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			for (int round = 0; round < 200; round++) {
+				Publication<String, Object> publication = new Publication<>();
+				CyclicBarrier barrier = new CyclicBarrier(THREADS);
+				List<Future<Boolean>> claims = new ArrayList<>();
+				for (int i = 0; i < THREADS; i++) {
+					claims.add(executor.submit(() -> {
+						barrier.await();
+						return publication.claim(new Object());
+					}));
+				}
+				int won = 0;
+				for (Future<Boolean> claim : claims) {
+					won += claim.get() ? 1 : 0;
+				}
+				assertEquals(won, 1, "round " + round);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void lazyExpressionComputesOnce() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			for (int round = 0; round < 200; round++) {
+				AtomicInteger computations = new AtomicInteger();
+				LazyExpression<int[]> lazy = _lazy(() -> new int[] { computations.incrementAndGet() });
+				CyclicBarrier barrier = new CyclicBarrier(THREADS);
+				List<Future<int[]>> values = new ArrayList<>();
+				for (int i = 0; i < THREADS; i++) {
+					values.add(executor.submit(() -> {
+						barrier.await();
+						return lazy.get();
+					}));
+				}
+				for (Future<int[]> value : values) {
+					assertEquals(value.get()[0], 1, "round " + round);
+				}
+				assertEquals(computations.get(), 1, "round " + round);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}